@@ -0,0 +1,66 @@
+package com.cap.dis.benchmark;
+
+import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.UdpListenerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UdpListenerService.decodeDisPdu (json) and encodeDisPdu (json-bytes) on the hot PDU types, which
+ * FlyweightJson writes straight from the datagram. Includes the header dispatch with the real
+ * DisMetricsTracker, as on the receive thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlyweightDecodeBenchmark {
+
+    @Param({"ENTITY_STATE", "FIRE", "DETONATION", "COLLISION", "DESIGNATOR"})
+    public PduFixtures pdu;
+
+    private ByteBuffer datagram;
+    private UdpListenerService service;
+    private MethodHandle decodeDisPdu;
+    private MethodHandle encodeDisPdu;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        datagram = ByteBuffer.wrap(pdu.bytes());
+        service = new UdpListenerService(null, new DisMetricsTracker());
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(UdpListenerService.class, MethodHandles.lookup());
+        decodeDisPdu = lookup.findVirtual(UdpListenerService.class, "decodeDisPdu",
+                MethodType.methodType(String.class, ByteBuffer.class));
+        encodeDisPdu = lookup.findVirtual(UdpListenerService.class, "encodeDisPdu",
+                MethodType.methodType(byte[].class, ByteBuffer.class));
+    }
+
+    @Benchmark
+    public String decodeDisPdu() throws Throwable {
+        datagram.position(0);
+        return (String) decodeDisPdu.invokeExact(service, datagram);
+    }
+
+    @Benchmark
+    public byte[] encodeDisPdu() throws Throwable {
+        datagram.position(0);
+        return (byte[]) encodeDisPdu.invokeExact(service, datagram);
+    }
+}
@@ -0,0 +1,97 @@
+package com.cap.dis.benchmark;
+
+import com.cap.dis.service.DisMetricsTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-PDU DisMetricsTracker updates from 1, 4 and 16 receive threads sharing one tracker.
+ * "counters" is the per-type rate counting alone; "all" adds the active entity, top talker and
+ * latency updates a datagram triggers on its way to Kafka.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsUpdateBenchmark {
+
+    // Mix of a live exercise: mostly Entity State, some Fire / Detonation / Data / Designator / EE
+    private static final int[] PDU_TYPES = {1, 1, 1, 1, 2, 3, 20, 24, 1, 1, 1, 1, 1, 23, 1, 1};
+
+    @Param({"counters", "all"})
+    public String updates;
+
+    private DisMetricsTracker tracker;
+    private boolean allUpdates;
+    private ByteBuffer datagram;
+    private InetAddress source;
+    private final AtomicInteger senders = new AtomicInteger();
+
+    /** One simulator per thread, cycling through its own 1024 entities. */
+    @State(Scope.Thread)
+    public static class Sender {
+        long sequence;
+        int site;
+
+        @Setup
+        public void setUp(MetricsUpdateBenchmark benchmark) {
+            site = benchmark.senders.incrementAndGet();
+        }
+    }
+
+    @Setup
+    public void setUp() throws UnknownHostException {
+        tracker = new DisMetricsTracker();
+        tracker.setTopTalkerCapacity(64);
+        allUpdates = "all".equals(updates);
+        datagram = ByteBuffer.wrap(PduFixtures.ENTITY_STATE.bytes());
+        source = InetAddress.getByName("10.20.30.40");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void oneThread(Sender sender) {
+        update(sender);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fourThreads(Sender sender) {
+        update(sender);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void sixteenThreads(Sender sender) {
+        update(sender);
+    }
+
+    private void update(Sender sender) {
+        long sequence = sender.sequence++;
+        int pduType = PDU_TYPES[(int) (sequence & 15)];
+        tracker.pduTypeReceived(pduType);
+        if (allUpdates) {
+            tracker.entitySeen(1, pduType, (long) sender.site << 32 | 3101L << 16 | (sequence & 1023));
+            tracker.talkerReceived(datagram, 0, source);
+            tracker.recordLatency(pduType, 250_000 + (sequence & 0xFFFF));
+        }
+    }
+}
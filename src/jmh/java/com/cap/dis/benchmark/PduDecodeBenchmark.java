@@ -0,0 +1,67 @@
+package com.cap.dis.benchmark;
+
+import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.UdpListenerService;
+import edu.nps.moves.dis.Pdu;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The object path of UdpListenerService for every PDU type: unmarshal into the open-dis object, then
+ * pduToJson. PduFactory.createPdu only adds the type-byte lookup of the PDU class in front of the
+ * unmarshal; the lookup needs the disenum classes, which the open-dis build on the classpath lacks,
+ * so the object is created directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PduDecodeBenchmark {
+
+    @Param({"ENTITY_STATE", "FIRE", "DETONATION", "COLLISION", "DESIGNATOR",
+            "START_RESUME", "ACTION_REQUEST", "SET_DATA", "DATA", "ELECTROMAGNETIC_EMISSION"})
+    public PduFixtures pdu;
+
+    private ByteBuffer datagram;
+    private UdpListenerService service;
+    private MethodHandle pduToJson;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        datagram = ByteBuffer.wrap(pdu.bytes());
+        service = new UdpListenerService(null, new DisMetricsTracker());
+        pduToJson = MethodHandles.privateLookupIn(UdpListenerService.class, MethodHandles.lookup())
+                .findVirtual(UdpListenerService.class, "pduToJson", MethodType.methodType(String.class, Pdu.class));
+    }
+
+    @Benchmark
+    public Pdu unmarshal() {
+        Pdu decoded = pdu.newPdu();
+        decoded.unmarshal(datagram.duplicate());
+        return decoded;
+    }
+
+    @Benchmark
+    public String unmarshalAndPduToJson() throws Throwable {
+        Pdu decoded = pdu.newPdu();
+        decoded.unmarshal(datagram.duplicate());
+        return (String) pduToJson.invokeExact(service, decoded);
+    }
+}
@@ -0,0 +1,129 @@
+package com.cap.dis.benchmark;
+
+import edu.nps.moves.dis.ActionRequestPdu;
+import edu.nps.moves.dis.CollisionPdu;
+import edu.nps.moves.dis.DataPdu;
+import edu.nps.moves.dis.DesignatorPdu;
+import edu.nps.moves.dis.DetonationPdu;
+import edu.nps.moves.dis.ElectronicEmissionsPdu;
+import edu.nps.moves.dis.EntityID;
+import edu.nps.moves.dis.EntityStatePdu;
+import edu.nps.moves.dis.FirePdu;
+import edu.nps.moves.dis.Pdu;
+import edu.nps.moves.dis.SetDataPdu;
+import edu.nps.moves.dis.StartResumePdu;
+
+import java.util.function.Supplier;
+
+/**
+ * Canned datagrams for every PDU type UdpListenerService writes detailed JSON for, filled with the
+ * kind of values a live exercise sends (ECEF positions near Monterey, moving entities, DIS 7 headers
+ * with a relative timestamp) and marshalled once with open-dis.
+ */
+public enum PduFixtures {
+
+    ENTITY_STATE(true, EntityStatePdu::new),
+    FIRE(true, FirePdu::new),
+    DETONATION(true, DetonationPdu::new),
+    COLLISION(true, CollisionPdu::new),
+    DESIGNATOR(true, DesignatorPdu::new),
+    START_RESUME(false, StartResumePdu::new),
+    ACTION_REQUEST(false, ActionRequestPdu::new),
+    SET_DATA(false, SetDataPdu::new),
+    DATA(false, DataPdu::new),
+    ELECTROMAGNETIC_EMISSION(false, ElectronicEmissionsPdu::new);
+
+    private final boolean flyweight;
+    private final Supplier<Pdu> factory;
+
+    PduFixtures(boolean flyweight, Supplier<Pdu> factory) {
+        this.flyweight = flyweight;
+        this.factory = factory;
+    }
+
+    /** Whether FlyweightJson encodes this type straight from the datagram. */
+    public boolean isFlyweight() {
+        return flyweight;
+    }
+
+    /** Empty PDU object of this type, as PduFactory would create it for the type byte before unmarshalling. */
+    public Pdu newPdu() {
+        return factory.get();
+    }
+
+    public byte[] bytes() {
+        Pdu pdu = newPdu();
+        pdu.setProtocolVersion((short) 7);
+        pdu.setExerciseID((short) 1);
+        pdu.setTimestamp(0x5A3C_1E00L); // relative time, LSB clear
+        if (pdu instanceof EntityStatePdu esp) {
+            esp.setEntityID(entityId(1, 3101, 1042));
+            esp.getEntityLocation().setX(-2_707_215.123);
+            esp.getEntityLocation().setY(-4_353_669.876);
+            esp.getEntityLocation().setZ(3_781_393.452);
+            esp.getEntityLinearVelocity().setX(12.5f);
+            esp.getEntityLinearVelocity().setY(-3.25f);
+            esp.getEntityLinearVelocity().setZ(0.75f);
+            esp.getEntityOrientation().setPsi(1.5708f);
+            esp.getEntityOrientation().setTheta(0.0349f);
+            esp.getEntityOrientation().setPhi(-0.0175f);
+            esp.getDeadReckoningParameters().setDeadReckoningAlgorithm((short) 4);
+        } else if (pdu instanceof FirePdu fp) {
+            fp.setFiringEntityID(entityId(1, 3101, 1042));
+            fp.setTargetEntityID(entityId(2, 3201, 77));
+            fp.setMunitionID(entityId(1, 3101, 60_001));
+            fp.getLocationInWorldCoordinates().setX(-2_707_215.123);
+            fp.getLocationInWorldCoordinates().setY(-4_353_669.876);
+            fp.getLocationInWorldCoordinates().setZ(3_781_393.452);
+            fp.setRangeToTarget(2450.0f);
+        } else if (pdu instanceof DetonationPdu dp) {
+            dp.setFiringEntityID(entityId(1, 3101, 1042));
+            dp.setTargetEntityID(entityId(2, 3201, 77));
+            dp.setMunitionID(entityId(1, 3101, 60_001));
+            dp.getLocationInWorldCoordinates().setX(-2_705_012.5);
+            dp.getLocationInWorldCoordinates().setY(-4_352_200.25);
+            dp.getLocationInWorldCoordinates().setZ(3_782_001.0);
+        } else if (pdu instanceof CollisionPdu cp) {
+            cp.setIssuingEntityID(entityId(1, 3101, 1042));
+            cp.setCollidingEntityID(entityId(1, 3101, 1043));
+            cp.setMass(42_000.0f);
+        } else if (pdu instanceof DesignatorPdu dp) {
+            dp.setDesignatingEntityID(entityId(1, 3101, 1050));
+            dp.setCodeName(1111);
+            dp.setDesignatedEntityID(entityId(2, 3201, 77));
+            dp.setDesignatorPower(5.0f);
+            dp.setDesignatorWavelength(1.064f);
+        } else if (pdu instanceof StartResumePdu srp) {
+            srp.setOriginatingEntityID(entityId(1, 3000, 0xFFFF));
+            srp.setReceivingEntityID(entityId(0xFFFF, 0xFFFF, 0xFFFF));
+            srp.getRealWorldTime().setHour(483_912);
+            srp.getRealWorldTime().setTimePastHour(1_073_741_824);
+            srp.setRequestID(17);
+        } else if (pdu instanceof ActionRequestPdu arp) {
+            arp.setOriginatingEntityID(entityId(1, 3000, 0xFFFF));
+            arp.setReceivingEntityID(entityId(1, 3101, 1042));
+            arp.setRequestID(18);
+            arp.setActionID(4);
+        } else if (pdu instanceof SetDataPdu sdp) {
+            sdp.setOriginatingEntityID(entityId(1, 3000, 0xFFFF));
+            sdp.setReceivingEntityID(entityId(1, 3101, 1042));
+            sdp.setRequestID(19);
+        } else if (pdu instanceof DataPdu dp) {
+            dp.setOriginatingEntityID(entityId(1, 3101, 1042));
+            dp.setReceivingEntityID(entityId(1, 3000, 0xFFFF));
+            dp.setRequestID(20);
+        } else if (pdu instanceof ElectronicEmissionsPdu eep) {
+            eep.setEmittingEntityID(entityId(2, 3201, 77));
+            eep.getEventID().setEventNumber(901);
+        }
+        return pdu.marshal();
+    }
+
+    private static EntityID entityId(int site, int application, int entity) {
+        EntityID id = new EntityID();
+        id.setSite(site);
+        id.setApplication(application);
+        id.setEntity(entity);
+        return id;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cap.dis.benchmark;
+
+import com.cap.dis.model.RealTimeMetrics;
+import com.cap.dis.service.DisMetricsTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DisMetricsTracker.getMetrics() against windows filled with traffic of 1, 10 or all 72 PDU types
+ * and 0 to 100,000 distinct entities, next to the cached getLatestSnapshot() the controller serves.
+ * The window is refilled before every iteration so it never ages out during a run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final int MIN_PDUS = 10_000;
+
+    @Param({"1", "10", "72"})
+    public int pduTypes;
+
+    @Param({"0", "1000", "100000"})
+    public int entities;
+
+    private DisMetricsTracker tracker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracker = new DisMetricsTracker();
+    }
+
+    @Setup(Level.Iteration)
+    public void fillWindow() {
+        for (int i = 0; i < Math.max(MIN_PDUS, entities); i++) {
+            int pduType = 1 + i % pduTypes;
+            tracker.pduTypeReceived(pduType);
+            if (entities > 0) {
+                tracker.entitySeen(i & 3, pduType, 1L << 32 | 3101L << 16 | (i % entities));
+            }
+        }
+        tracker.publishSnapshot();
+    }
+
+    @Benchmark
+    public RealTimeMetrics getMetrics() {
+        return tracker.getMetrics();
+    }
+
+    @Benchmark
+    public RealTimeMetrics getLatestSnapshot() {
+        return tracker.getLatestSnapshot();
+    }
+}
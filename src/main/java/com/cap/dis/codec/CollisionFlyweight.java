@@ -0,0 +1,15 @@
+package com.cap.dis.codec;
+
+/**
+ * Field offsets of a Collision PDU (type 4), relative to the start of its header.
+ */
+public final class CollisionFlyweight {
+
+    public static final int PDU_TYPE = 4;
+    public static final int SIZE = 60;
+    public static final int ISSUING_ENTITY_ID = 12;
+    public static final int COLLIDING_ENTITY_ID = 18;
+
+    private CollisionFlyweight() {
+    }
+}
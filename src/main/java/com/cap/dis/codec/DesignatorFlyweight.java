@@ -0,0 +1,16 @@
+package com.cap.dis.codec;
+
+/**
+ * Field offsets of a Designator PDU (type 24), relative to the start of its header.
+ */
+public final class DesignatorFlyweight {
+
+    public static final int PDU_TYPE = 24;
+    public static final int SIZE = 88;
+    public static final int DESIGNATING_ENTITY_ID = 12;
+    // Designator code name (uint16) sits between the two entity IDs
+    public static final int DESIGNATED_ENTITY_ID = 20;
+
+    private DesignatorFlyweight() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.cap.dis.codec;
+
+/**
+ * Field offsets of a Detonation PDU (type 3), relative to the start of its header.
+ */
+public final class DetonationFlyweight {
+
+    public static final int PDU_TYPE = 3;
+    // Fixed part; articulation parameters follow
+    public static final int SIZE = 104;
+    public static final int FIRING_ENTITY_ID = 12;
+    public static final int TARGET_ENTITY_ID = 18;
+    public static final int ARTICULATION_COUNT = 101;
+
+    private DetonationFlyweight() {
+    }
+}
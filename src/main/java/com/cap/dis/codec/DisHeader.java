@@ -0,0 +1,47 @@
+package com.cap.dis.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Field accessors for the 12-byte DIS PDU header, read with absolute gets straight from the receive
+ * buffer. Nothing is unmarshalled or allocated, so the header can be inspected for every datagram
+ * (counting, filtering, routing) before deciding whether the body is worth decoding.
+ *
+ * <pre>
+ *  0 protocol version   1 exercise ID   2 PDU type   3 protocol family
+ *  4 timestamp (uint32)                 8 length (uint16)   10 padding
+ * </pre>
+ */
+public final class DisHeader {
+
+    public static final int SIZE = 12;
+
+    private DisHeader() {
+    }
+
+    public static int protocolVersion(ByteBuffer buffer, int start) {
+        return buffer.get(start) & 0xFF;
+    }
+
+    public static int exerciseId(ByteBuffer buffer, int start) {
+        return buffer.get(start + 1) & 0xFF;
+    }
+
+    public static int pduType(ByteBuffer buffer, int start) {
+        return buffer.get(start + 2) & 0xFF;
+    }
+
+    public static int protocolFamily(ByteBuffer buffer, int start) {
+        return buffer.get(start + 3) & 0xFF;
+    }
+
+    /** DIS timestamp as the unsigned 32-bit value it is on the wire. */
+    public static long timestamp(ByteBuffer buffer, int start) {
+        return buffer.getInt(start + 4) & 0xFFFFFFFFL;
+    }
+
+    /** PDU length declared in the header, in bytes. */
+    public static int length(ByteBuffer buffer, int start) {
+        return buffer.getShort(start + 8) & 0xFFFF;
+    }
+}
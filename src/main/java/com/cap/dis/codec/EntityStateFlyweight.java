@@ -0,0 +1,95 @@
+package com.cap.dis.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-offset reader for an Entity State PDU (type 1) in a receive buffer. {@code start} is the
+ * index of the PDU header; nothing is unmarshalled or allocated.
+ */
+public final class EntityStateFlyweight {
+
+    public static final int PDU_TYPE = 1;
+    // Fixed part up to and including capabilities; articulation parameters follow
+    public static final int SIZE = 144;
+    public static final int ENTITY_ID = 12;
+    // Number of 16-byte articulation parameters after the fixed part
+    public static final int ARTICULATION_COUNT = 19;
+    public static final int ARTICULATION_PARAMETER_SIZE = 16;
+    public static final int LINEAR_VELOCITY = 36;
+    public static final int LOCATION = 48;
+    public static final int ORIENTATION = 72;
+    public static final int DEAD_RECKONING_ALGORITHM = 88;
+    public static final int LINEAR_ACCELERATION = 104;
+    public static final int ANGULAR_VELOCITY = 116;
+
+    private EntityStateFlyweight() {
+    }
+
+    public static double locationX(ByteBuffer buffer, int start) {
+        return buffer.getDouble(start + LOCATION);
+    }
+
+    public static double locationY(ByteBuffer buffer, int start) {
+        return buffer.getDouble(start + LOCATION + 8);
+    }
+
+    public static double locationZ(ByteBuffer buffer, int start) {
+        return buffer.getDouble(start + LOCATION + 16);
+    }
+
+    // Linear velocity (m/s), world coordinates or body axes depending on the dead-reckoning algorithm
+    public static float velocityX(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_VELOCITY);
+    }
+
+    public static float velocityY(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_VELOCITY + 4);
+    }
+
+    public static float velocityZ(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_VELOCITY + 8);
+    }
+
+    // Euler angles (radians)
+    public static float psi(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ORIENTATION);
+    }
+
+    public static float theta(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ORIENTATION + 4);
+    }
+
+    public static float phi(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ORIENTATION + 8);
+    }
+
+    /** Dead-reckoning algorithm enumeration: 1 = static, 2-5 = world axes (FPW, RPW, RVW, FVW), 6-9 = body axes. */
+    public static int deadReckoningAlgorithm(ByteBuffer buffer, int start) {
+        return buffer.get(start + DEAD_RECKONING_ALGORITHM) & 0xFF;
+    }
+
+    public static float accelerationX(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_ACCELERATION);
+    }
+
+    public static float accelerationY(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_ACCELERATION + 4);
+    }
+
+    public static float accelerationZ(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + LINEAR_ACCELERATION + 8);
+    }
+
+    // Angular velocity (rad/s) about the body axes
+    public static float angularVelocityX(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ANGULAR_VELOCITY);
+    }
+
+    public static float angularVelocityY(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ANGULAR_VELOCITY + 4);
+    }
+
+    public static float angularVelocityZ(ByteBuffer buffer, int start) {
+        return buffer.getFloat(start + ANGULAR_VELOCITY + 8);
+    }
+}
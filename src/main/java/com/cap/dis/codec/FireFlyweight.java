@@ -0,0 +1,16 @@
+package com.cap.dis.codec;
+
+/**
+ * Field offsets of a Fire PDU (type 2), relative to the start of its header.
+ */
+public final class FireFlyweight {
+
+    public static final int PDU_TYPE = 2;
+    public static final int SIZE = 96;
+    public static final int FIRING_ENTITY_ID = 12;
+    public static final int TARGET_ENTITY_ID = 18;
+    public static final int MUNITION_ID = 24;
+
+    private FireFlyweight() {
+    }
+}
@@ -0,0 +1,119 @@
+package com.cap.dis.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the ingestion JSON for the high-volume PDU types (Entity State, Fire, Detonation, Collision,
+ * Designator) straight from the receive buffer through the fixed-offset flyweights, so those PDUs
+ * never go through PduFactory. The output matches {@code UdpListenerService.pduToJson} for the same
+ * PDU field for field and byte for byte (apart from the processedAt value supplied by the caller).
+ */
+public final class FlyweightJson {
+
+    // Fixed size each supported type needs to be read safely; 0 = not handled by a flyweight
+    private static final int[] MIN_SIZE = new int[256];
+    // Offset of the articulation parameter count for types with a variable part; 0 = fixed size
+    private static final int[] ARTICULATION_COUNT = new int[256];
+    private static final String[] TYPE_NAMES = new String[256];
+
+    static {
+        register(EntityStateFlyweight.PDU_TYPE, EntityStateFlyweight.SIZE, "EntityStatePdu");
+        register(FireFlyweight.PDU_TYPE, FireFlyweight.SIZE, "FirePdu");
+        register(DetonationFlyweight.PDU_TYPE, DetonationFlyweight.SIZE, "DetonationPdu");
+        register(CollisionFlyweight.PDU_TYPE, CollisionFlyweight.SIZE, "CollisionPdu");
+        register(DesignatorFlyweight.PDU_TYPE, DesignatorFlyweight.SIZE, "DesignatorPdu");
+        ARTICULATION_COUNT[EntityStateFlyweight.PDU_TYPE] = EntityStateFlyweight.ARTICULATION_COUNT;
+        ARTICULATION_COUNT[DetonationFlyweight.PDU_TYPE] = DetonationFlyweight.ARTICULATION_COUNT;
+    }
+
+    private static void register(int pduType, int size, String typeName) {
+        MIN_SIZE[pduType] = size;
+        TYPE_NAMES[pduType] = typeName;
+    }
+
+    private FlyweightJson() {
+    }
+
+    /**
+     * True when the PDU starting at {@code start} is a supported type and long enough to read in place,
+     * including the articulation parameters it declares. A PDU that declares more than the datagram
+     * holds is left to PduFactory, which reports it as insufficient data.
+     */
+    public static boolean canWrite(ByteBuffer buffer, int start) {
+        int pduType = DisHeader.pduType(buffer, start);
+        int minSize = MIN_SIZE[pduType];
+        int available = buffer.limit() - start;
+        if (minSize == 0 || available < minSize) {
+            return false;
+        }
+        int countOffset = ARTICULATION_COUNT[pduType];
+        return countOffset == 0 || available >= minSize
+                + (buffer.get(start + countOffset) & 0xFF) * EntityStateFlyweight.ARTICULATION_PARAMETER_SIZE;
+    }
+
+    public static String toJson(ByteBuffer buffer, int start, long processedAt) {
+        JsonByteWriter json = JsonByteWriter.forCurrentThread();
+        write(buffer, start, processedAt, json);
+        return json.toString();
+    }
+
+    /** Same JSON as {@link #toJson} encoded as UTF-8, without going through a String. */
+    public static byte[] toJsonBytes(ByteBuffer buffer, int start, long processedAt) {
+        JsonByteWriter json = JsonByteWriter.forCurrentThread();
+        write(buffer, start, processedAt, json);
+        return json.toByteArray();
+    }
+
+    public static void write(ByteBuffer buffer, int start, long processedAt, JsonByteWriter json) {
+        int pduType = DisHeader.pduType(buffer, start);
+        json.ascii("{\"type\":\"").ascii(TYPE_NAMES[pduType]).ascii("\",");
+        json.ascii("\"protocolVersion\":").number(DisHeader.protocolVersion(buffer, start)).ascii(",");
+        json.ascii("\"exerciseID\":").number(DisHeader.exerciseId(buffer, start)).ascii(",");
+        json.ascii("\"pduType\":").number(pduType).ascii(",");
+        json.ascii("\"timestamp\":").number(DisHeader.timestamp(buffer, start)).ascii(",");
+
+        switch (pduType) {
+            case EntityStateFlyweight.PDU_TYPE -> {
+                writeEntityId(json, "entityId", buffer, start + EntityStateFlyweight.ENTITY_ID);
+                json.ascii(",\"location\":{");
+                json.ascii("\"x\":").number(EntityStateFlyweight.locationX(buffer, start)).ascii(",");
+                json.ascii("\"y\":").number(EntityStateFlyweight.locationY(buffer, start)).ascii(",");
+                json.ascii("\"z\":").number(EntityStateFlyweight.locationZ(buffer, start));
+                json.ascii("}");
+            }
+            case FireFlyweight.PDU_TYPE -> {
+                writeEntityId(json, "firingEntityId", buffer, start + FireFlyweight.FIRING_ENTITY_ID);
+                json.ascii(",");
+                writeEntityId(json, "targetEntityId", buffer, start + FireFlyweight.TARGET_ENTITY_ID);
+                json.ascii(",");
+                writeEntityId(json, "munitionId", buffer, start + FireFlyweight.MUNITION_ID);
+            }
+            case DetonationFlyweight.PDU_TYPE -> {
+                writeEntityId(json, "firingEntityId", buffer, start + DetonationFlyweight.FIRING_ENTITY_ID);
+                json.ascii(",");
+                writeEntityId(json, "targetEntityId", buffer, start + DetonationFlyweight.TARGET_ENTITY_ID);
+            }
+            case CollisionFlyweight.PDU_TYPE -> {
+                writeEntityId(json, "issuingEntityId", buffer, start + CollisionFlyweight.ISSUING_ENTITY_ID);
+                json.ascii(",");
+                writeEntityId(json, "collidingEntityId", buffer, start + CollisionFlyweight.COLLIDING_ENTITY_ID);
+            }
+            case DesignatorFlyweight.PDU_TYPE -> {
+                writeEntityId(json, "designatingEntityId", buffer, start + DesignatorFlyweight.DESIGNATING_ENTITY_ID);
+                json.ascii(",");
+                writeEntityId(json, "designatedEntityId", buffer, start + DesignatorFlyweight.DESIGNATED_ENTITY_ID);
+            }
+            default -> throw new IllegalArgumentException("No flyweight for PDU type " + pduType);
+        }
+
+        json.ascii(",\"processedAt\":").number(processedAt).ascii("}");
+    }
+
+    private static void writeEntityId(JsonByteWriter json, String name, ByteBuffer buffer, int index) {
+        json.ascii("\"").ascii(name).ascii("\":{");
+        json.ascii("\"site\":").number(PduBytes.unsignedShort(buffer, index)).ascii(",");
+        json.ascii("\"application\":").number(PduBytes.unsignedShort(buffer, index + 2)).ascii(",");
+        json.ascii("\"entity\":").number(PduBytes.unsignedShort(buffer, index + 4));
+        json.ascii("}");
+    }
+}
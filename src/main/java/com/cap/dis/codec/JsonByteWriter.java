@@ -0,0 +1,102 @@
+package com.cap.dis.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that JSON is written into as ASCII, reused across messages by one thread
+ * (see {@link #forCurrentThread()}). Only ASCII literals and numbers go through it, so the bytes are
+ * valid UTF-8 as they are and the only allocation per message is the final {@link #toByteArray()}.
+ */
+public final class JsonByteWriter {
+
+    private static final ThreadLocal<JsonByteWriter> WRITERS = ThreadLocal.withInitial(JsonByteWriter::new);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes = new byte[512];
+    private int size;
+    // StringBuilder.append(double) formats into the builder without allocating; the chars are then
+    // copied over, which keeps Double.toString's exact output (and so the String path's JSON)
+    private final StringBuilder doubleScratch = new StringBuilder(32);
+
+    /** The calling thread's writer, emptied and ready for a new message. */
+    public static JsonByteWriter forCurrentThread() {
+        JsonByteWriter writer = WRITERS.get();
+        writer.reset();
+        return writer;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Appends a string that is known to be ASCII (JSON punctuation, keys, type names). */
+    public JsonByteWriter ascii(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    public JsonByteWriter number(long value) {
+        if (value == Long.MIN_VALUE) {
+            ensureCapacity(MIN_LONG.length);
+            System.arraycopy(MIN_LONG, 0, bytes, size, MIN_LONG.length);
+            size += MIN_LONG.length;
+            return this;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int end = size + digits(value);
+        int position = end;
+        do {
+            bytes[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        size = end;
+        return this;
+    }
+
+    public JsonByteWriter number(double value) {
+        doubleScratch.setLength(0);
+        doubleScratch.append(value);
+        int length = doubleScratch.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) doubleScratch.charAt(i);
+        }
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.US_ASCII);
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
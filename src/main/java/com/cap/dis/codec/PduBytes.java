@@ -0,0 +1,54 @@
+package com.cap.dis.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cheap reads of well-known fields straight from a raw DIS datagram (position..limit of the buffer),
+ * without unmarshalling it. All multi-byte DIS fields are big-endian, which is ByteBuffer's default.
+ */
+public final class PduBytes {
+
+    // Nearly every DIS PDU starts its body with the EntityID-shaped record of the entity it is about
+    // (entity, firing/issuing/designating/emitting/originating entity...): site, application, entity
+    public static final int PRIMARY_ENTITY_OFFSET = 12;
+    public static final int ENTITY_ID_SIZE = 6;
+    public static final long NO_ENTITY = -1L;
+
+    private PduBytes() {
+    }
+
+    /**
+     * Packs the primary EntityID as site << 32 | application << 16 | entity, or returns
+     * {@link #NO_ENTITY} when the datagram is too short to carry one.
+     */
+    public static long primaryEntityId(ByteBuffer buffer) {
+        return primaryEntityId(buffer, buffer.position());
+    }
+
+    /** Same as {@link #primaryEntityId(ByteBuffer)} for a PDU starting at an absolute index, ignoring the position. */
+    public static long primaryEntityId(ByteBuffer buffer, int pduStart) {
+        return entityId(buffer, pduStart + PRIMARY_ENTITY_OFFSET);
+    }
+
+    private static long entityId(ByteBuffer buffer, int start) {
+        if (start + ENTITY_ID_SIZE > buffer.limit()) {
+            return NO_ENTITY;
+        }
+        return (long) (buffer.getShort(start) & 0xFFFF) << 32
+                | (long) (buffer.getShort(start + 2) & 0xFFFF) << 16
+                | (buffer.getShort(start + 4) & 0xFFFF);
+    }
+
+    public static int unsignedShort(ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xFFFF;
+    }
+
+    /** Stable shard in [0, shards) for an entity; datagrams without an entity all go to shard 0. */
+    public static int shardOf(long entityId, int shards) {
+        if (entityId == NO_ENTITY || shards <= 1) {
+            return 0;
+        }
+        long mixed = entityId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) shards);
+    }
+}
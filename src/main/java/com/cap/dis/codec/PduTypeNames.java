@@ -0,0 +1,41 @@
+package com.cap.dis.codec;
+
+/**
+ * Names of the DIS PDU types (IEEE 1278.1-2012, SISO-REF-010 "DISPDUType"), indexed by the PDU type
+ * byte of the header. Unassigned values are reported as "Unknown".
+ */
+public final class PduTypeNames {
+
+    private static final String UNKNOWN = "Unknown";
+    private static final String[] NAMES = new String[256];
+
+    static {
+        String[] assigned = {
+            "Other", "Entity State", "Fire", "Detonation", "Collision", "Service Request",
+            "Resupply Offer", "Resupply Received", "Resupply Cancel", "Repair Complete", "Repair Response",
+            "Create Entity", "Remove Entity", "Start/Resume", "Stop/Freeze", "Acknowledge",
+            "Action Request", "Action Response", "Data Query", "Set Data", "Data", "Event Report",
+            "Comment", "Electromagnetic Emission", "Designator", "Transmitter", "Signal", "Receiver",
+            "IFF", "Underwater Acoustic", "Supplemental Emission/Entity State", "Intercom Signal",
+            "Intercom Control", "Aggregate State", "IsGroupOf", "Transfer Ownership", "IsPartOf",
+            "Minefield State", "Minefield Query", "Minefield Data", "Minefield Response NACK",
+            "Environmental Process", "Gridded Data", "Point Object State", "Linear Object State",
+            "Areal Object State", "TSPI", "Appearance", "Articulated Parts", "LE Fire", "LE Detonation",
+            "Create Entity-R", "Remove Entity-R", "Start/Resume-R", "Stop/Freeze-R", "Acknowledge-R",
+            "Action Request-R", "Action Response-R", "Data Query-R", "Set Data-R", "Data-R",
+            "Event Report-R", "Comment-R", "Record-R", "Set Record-R", "Record Query-R",
+            "Collision-Elastic", "Entity State Update", "Directed Energy Fire", "Entity Damage Status",
+            "Information Operations Action", "Information Operations Report", "Attribute"
+        };
+        for (int pduType = 0; pduType < NAMES.length; pduType++) {
+            NAMES[pduType] = pduType < assigned.length ? assigned[pduType] : UNKNOWN;
+        }
+    }
+
+    private PduTypeNames() {
+    }
+
+    public static String name(int pduType) {
+        return NAMES[pduType & 0xFF];
+    }
+}
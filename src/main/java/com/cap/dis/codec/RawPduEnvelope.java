@@ -0,0 +1,91 @@
+package com.cap.dis.codec;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary record for the raw passthrough output mode: a small big-endian envelope followed by
+ * the datagram exactly as it was received. Consumers that speak DIS unmarshal the PDU themselves from
+ * {@link #pduOffset(ByteBuffer)} to the end of the record.
+ *
+ * <pre>
+ *  0 version (1)        1 PDU type      2 exercise ID   3 address length (0, 4 or 16)
+ *  4 received at (int64, epoch millis)
+ * 12 source port (uint16)               14 source address (address length bytes)
+ * 14 + address length: original PDU bytes
+ * </pre>
+ */
+public final class RawPduEnvelope {
+
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 14;
+    private static final byte[] EMPTY = new byte[0];
+
+    private RawPduEnvelope() {
+    }
+
+    /**
+     * Wraps the datagram between {@code pdu.position()} and {@code pdu.limit()} without moving the
+     * buffer's position. The datagram must hold at least a DIS header.
+     */
+    public static byte[] encode(ByteBuffer pdu, SocketAddress source, long receivedAt) {
+        int start = pdu.position();
+        int length = pdu.remaining();
+        byte[] address = EMPTY;
+        int port = 0;
+        if (source instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            address = inet.getAddress().getAddress();
+            port = inet.getPort();
+        }
+        byte[] record = new byte[HEADER_SIZE + address.length + length];
+        ByteBuffer out = ByteBuffer.wrap(record);
+        out.put(VERSION)
+                .put((byte) DisHeader.pduType(pdu, start))
+                .put((byte) DisHeader.exerciseId(pdu, start))
+                .put((byte) address.length)
+                .putLong(receivedAt)
+                .putShort((short) port)
+                .put(address)
+                .put(pdu.duplicate());
+        return record;
+    }
+
+    public static int version(ByteBuffer record) {
+        return record.get(0) & 0xFF;
+    }
+
+    public static int pduType(ByteBuffer record) {
+        return record.get(1) & 0xFF;
+    }
+
+    public static int exerciseId(ByteBuffer record) {
+        return record.get(2) & 0xFF;
+    }
+
+    public static long receivedAt(ByteBuffer record) {
+        return record.getLong(4);
+    }
+
+    public static int sourcePort(ByteBuffer record) {
+        return record.getShort(12) & 0xFFFF;
+    }
+
+    /** Source address of the datagram, or null when the receiver did not know it. */
+    public static InetAddress sourceAddress(ByteBuffer record) throws UnknownHostException {
+        int length = record.get(3) & 0xFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] address = new byte[length];
+        record.get(HEADER_SIZE, address);
+        return InetAddress.getByAddress(address);
+    }
+
+    /** Index of the first byte of the original PDU. */
+    public static int pduOffset(ByteBuffer record) {
+        return HEADER_SIZE + (record.get(3) & 0xFF);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cap.dis.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * How the Kafka record key is derived from a datagram. Keys come from the PDU's primary entity
+ * (see {@link PduBytes#PRIMARY_ENTITY_OFFSET}), so every record about one entity lands on the same
+ * partition and consumers can scale with the partition count without losing per-entity order.
+ */
+public enum RecordKeyStrategy {
+
+    /** No key; records are spread over partitions by the producer. */
+    NONE,
+    /** "site:application:entity" of the primary entity. */
+    ENTITY,
+    /** "exercise:site:application:entity", for topics shared by concurrent exercises that reuse entity IDs. */
+    EXERCISE_ENTITY;
+
+    /** Parses the {@code kafka.key-strategy} value ("none", "entity", "exercise-entity"). */
+    public static RecordKeyStrategy fromProperty(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /** Key for the PDU starting at {@code start}, or null when there is none (strategy NONE, datagram too short). */
+    public String keyFor(ByteBuffer buffer, int start) {
+        if (this == NONE) {
+            return null;
+        }
+        int index = start + PduBytes.PRIMARY_ENTITY_OFFSET;
+        if (index + PduBytes.ENTITY_ID_SIZE > buffer.limit()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(24);
+        if (this == EXERCISE_ENTITY) {
+            key.append(DisHeader.exerciseId(buffer, start)).append(':');
+        }
+        return key.append(PduBytes.unsignedShort(buffer, index)).append(':')
+                .append(PduBytes.unsignedShort(buffer, index + 2)).append(':')
+                .append(PduBytes.unsignedShort(buffer, index + 4))
+                .toString();
+    }
+}
@@ -1,26 +1,107 @@
 package com.cap.dis.controller;
 
+import com.cap.dis.model.DeadReckoningMetrics;
+import com.cap.dis.model.PduLatencies;
+import com.cap.dis.model.PduRates;
+import com.cap.dis.model.PduTypeMetrics;
+import com.cap.dis.model.PipelineStageMetrics;
 import com.cap.dis.model.RealTimeMetrics;
+import com.cap.dis.model.SpillJournalMetrics;
+import com.cap.dis.model.StageTimingMetrics;
+import com.cap.dis.model.TopTalkersMetrics;
 import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.MetricsStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/internal/metrics") // Internal endpoint, not exposed via main Ingress typically
 public class InternalMetricsController {
 
     private final DisMetricsTracker metricsTracker;
+    private final MetricsStreamService metricsStreamService;
 
     @Autowired
-    public InternalMetricsController(DisMetricsTracker metricsTracker) {
+    public InternalMetricsController(DisMetricsTracker metricsTracker, MetricsStreamService metricsStreamService) {
         this.metricsTracker = metricsTracker;
+        this.metricsStreamService = metricsStreamService;
     }
 
+    // Served from the snapshot published every dis.metrics.snapshot-interval-ms; no counting per request
     @GetMapping("/realtime")
     public ResponseEntity<RealTimeMetrics> getRealTimeDisMetrics() {
-        return ResponseEntity.ok(metricsTracker.getMetrics());
+        return ResponseEntity.ok(metricsTracker.getLatestSnapshot());
+    }
+
+    // Same metrics pushed as "realtime" Server-Sent Events, one per dis.metrics.snapshot-interval-ms,
+    // for dashboards that would otherwise poll /realtime
+    @GetMapping(value = "/realtime/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRealTimeDisMetrics() {
+        return metricsStreamService.subscribe();
+    }
+
+    @GetMapping("/pipeline")
+    public ResponseEntity<List<PipelineStageMetrics>> getPipelineMetrics() {
+        return ResponseEntity.ok(metricsTracker.getPipelineMetrics());
+    }
+
+    // Records shed by the Kafka backpressure policies, keyed by PDU type
+    @GetMapping("/shedding")
+    public ResponseEntity<Map<Integer, Long>> getSheddingMetrics() {
+        return ResponseEntity.ok(metricsTracker.getShedCounts());
+    }
+
+    // Entity State suppression by the dead-reckoning filter (all zero while dis.dead-reckoning.enabled is off)
+    @GetMapping("/dead-reckoning")
+    public ResponseEntity<DeadReckoningMetrics> getDeadReckoningMetrics() {
+        return ResponseEntity.ok(metricsTracker.getDeadReckoningMetrics());
+    }
+
+    // Rates over 1 s, 10 s, 1 min, 5 min and 15 min windows plus 1/5/15 min EWMAs, overall and per PDU type
+    @GetMapping("/rates")
+    public ResponseEntity<PduRates> getRates() {
+        return ResponseEntity.ok(metricsTracker.getRates());
+    }
+
+    // Receive-to-Kafka-acknowledgement latency percentiles since start, overall and per PDU type
+    @GetMapping("/latency")
+    public ResponseEntity<PduLatencies> getLatencies() {
+        return ResponseEntity.ok(metricsTracker.getLatencies());
+    }
+
+    // Sampled time per receive-path stage (dis.metrics.stage-sample-rate), to see which one saturates first
+    @GetMapping("/stages")
+    public ResponseEntity<List<StageTimingMetrics>> getStageTimings() {
+        return ResponseEntity.ok(metricsTracker.getStageTimings());
+    }
+
+    // Heaviest senders by exercise, site/application, source address and entity in the last window;
+    // 404 when dis.metrics.top-talkers.capacity is 0
+    @GetMapping("/top-talkers")
+    public ResponseEntity<TopTalkersMetrics> getTopTalkers(@RequestParam(defaultValue = "10") int limit) {
+        TopTalkersMetrics metrics = metricsTracker.getTopTalkers(limit);
+        return metrics == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(metrics);
+    }
+
+    // Counts for every PDU type seen since start, keyed by the PDU type byte
+    @GetMapping("/pdu-types")
+    public ResponseEntity<Map<Integer, PduTypeMetrics>> getPduTypeMetrics() {
+        return ResponseEntity.ok(metricsTracker.getPduTypeMetrics());
+    }
+
+    // Spill journal size and replay progress; 404 when kafka.spill.enabled is off
+    @GetMapping("/spill")
+    public ResponseEntity<SpillJournalMetrics> getSpillJournalMetrics() {
+        SpillJournalMetrics metrics = metricsTracker.getSpillJournalMetrics();
+        return metrics == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(metrics);
     }
-}
\ No newline at end of file
+}
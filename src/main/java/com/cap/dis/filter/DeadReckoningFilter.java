@@ -0,0 +1,180 @@
+package com.cap.dis.filter;
+
+import com.cap.dis.codec.DisHeader;
+import com.cap.dis.codec.EntityStateFlyweight;
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.service.DisMetricsTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops Entity State PDUs that a receiver could already predict. For every entity the last
+ * published state is kept; a new Entity State is only forwarded when it deviates from that state
+ * dead-reckoned to now (with the algorithm the entity itself declared) by more than the position or
+ * orientation threshold, when the declared algorithm changes, or when the heartbeat interval has
+ * passed. Everything else is suppressed before it is decoded.
+ *
+ * <p>Reads the datagram through {@link EntityStateFlyweight}. All PDUs of one entity arrive on the
+ * same thread (receivers are split by source, pipeline workers by EntityID), so each track has a
+ * single writer.
+ */
+@Component
+@ConditionalOnProperty(name = "dis.dead-reckoning.enabled", havingValue = "true")
+public class DeadReckoningFilter {
+
+    private static final int DRM_STATIC = 1;
+
+    // DIS defaults: 1 m, 3 degrees, 5 s heartbeat
+    @Value("${dis.dead-reckoning.position-threshold-m:1.0}")
+    private double positionThreshold = 1.0;
+
+    private double orientationThreshold = Math.toRadians(3.0);
+
+    @Value("${dis.dead-reckoning.heartbeat-ms:5000}")
+    private long heartbeatMs = 5000;
+
+    // Tracks of entities not heard from for this long are forgotten
+    @Value("${dis.dead-reckoning.stale-after-ms:60000}")
+    private long staleAfterMs = 60000;
+
+    private final DisMetricsTracker metricsTracker;
+    // Keyed by exercise << 48 | packed EntityID
+    private final ConcurrentHashMap<Long, Track> tracks = new ConcurrentHashMap<>();
+
+    public DeadReckoningFilter(DisMetricsTracker metricsTracker) {
+        this.metricsTracker = metricsTracker;
+    }
+
+    @Value("${dis.dead-reckoning.orientation-threshold-deg:3.0}")
+    void setOrientationThresholdDegrees(double degrees) {
+        this.orientationThreshold = Math.toRadians(degrees);
+    }
+
+    /** False when the PDU at {@code start} is an Entity State that dead reckoning already accounts for. */
+    public boolean shouldPublish(ByteBuffer buffer, int start, long nowMs) {
+        if (DisHeader.pduType(buffer, start) != EntityStateFlyweight.PDU_TYPE
+                || buffer.limit() - start < EntityStateFlyweight.SIZE) {
+            return true;
+        }
+        // The same EntityID in two exercises is two entities
+        long trackKey = (long) DisHeader.exerciseId(buffer, start) << 48 | PduBytes.primaryEntityId(buffer, start);
+        Track track = tracks.get(trackKey);
+        boolean publish = track == null
+                || nowMs - track.publishedAt >= heartbeatMs
+                || track.algorithm != EntityStateFlyweight.deadReckoningAlgorithm(buffer, start)
+                || track.exceedsThresholds(buffer, start, (nowMs - track.publishedAt) / 1000.0,
+                        positionThreshold, orientationThreshold);
+        if (publish) {
+            if (track == null) {
+                track = new Track();
+                tracks.put(trackKey, track);
+            }
+            track.update(buffer, start, nowMs);
+        }
+        track.lastSeen = nowMs;
+        metricsTracker.deadReckoningEvaluated(!publish);
+        return publish;
+    }
+
+    @Scheduled(fixedDelayString = "${dis.dead-reckoning.stale-after-ms:60000}")
+    public void evictStaleTracks() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        tracks.values().removeIf(track -> track.lastSeen < cutoff);
+    }
+
+    public int getTrackedEntities() {
+        return tracks.size();
+    }
+
+    // Last published state of one entity
+    private static final class Track {
+        long publishedAt;
+        volatile long lastSeen;
+        int algorithm;
+        double x, y, z;
+        double vx, vy, vz;
+        double ax, ay, az;
+        double psi, theta, phi;
+        double wx, wy, wz;
+
+        void update(ByteBuffer buffer, int start, long nowMs) {
+            publishedAt = nowMs;
+            algorithm = EntityStateFlyweight.deadReckoningAlgorithm(buffer, start);
+            x = EntityStateFlyweight.locationX(buffer, start);
+            y = EntityStateFlyweight.locationY(buffer, start);
+            z = EntityStateFlyweight.locationZ(buffer, start);
+            vx = EntityStateFlyweight.velocityX(buffer, start);
+            vy = EntityStateFlyweight.velocityY(buffer, start);
+            vz = EntityStateFlyweight.velocityZ(buffer, start);
+            ax = EntityStateFlyweight.accelerationX(buffer, start);
+            ay = EntityStateFlyweight.accelerationY(buffer, start);
+            az = EntityStateFlyweight.accelerationZ(buffer, start);
+            psi = EntityStateFlyweight.psi(buffer, start);
+            theta = EntityStateFlyweight.theta(buffer, start);
+            phi = EntityStateFlyweight.phi(buffer, start);
+            wx = EntityStateFlyweight.angularVelocityX(buffer, start);
+            wy = EntityStateFlyweight.angularVelocityY(buffer, start);
+            wz = EntityStateFlyweight.angularVelocityZ(buffer, start);
+        }
+
+        /**
+         * Dead-reckons this state {@code dt} seconds ahead and compares it with the received one.
+         * FPW/RPW/FPB/RPB (2, 3, 6, 7) use velocity only, RVW/FVW/RVB/FVB (4, 5, 8, 9) add
+         * acceleration; body-axis models (6-9) are rotated into world coordinates by the published
+         * orientation. Rotating models (3, 4, 7, 8) advance the Euler angles by the angular velocity,
+         * a small-angle approximation that is accurate over one heartbeat.
+         */
+        boolean exceedsThresholds(ByteBuffer buffer, int start, double dt,
+                                  double positionThreshold, double orientationThreshold) {
+            double px = x;
+            double py = y;
+            double pz = z;
+            double ePsi = psi;
+            double eTheta = theta;
+            double ePhi = phi;
+            if (algorithm > DRM_STATIC && algorithm <= 9) {
+                boolean accelerating = algorithm == 4 || algorithm == 5 || algorithm == 8 || algorithm == 9;
+                double half = accelerating ? 0.5 * dt * dt : 0;
+                double dx = vx * dt + ax * half;
+                double dy = vy * dt + ay * half;
+                double dz = vz * dt + az * half;
+                if (algorithm >= 6) {
+                    double cPsi = Math.cos(psi), sPsi = Math.sin(psi);
+                    double cTheta = Math.cos(theta), sTheta = Math.sin(theta);
+                    double cPhi = Math.cos(phi), sPhi = Math.sin(phi);
+                    double bx = dx, by = dy, bz = dz;
+                    dx = cPsi * cTheta * bx + (cPsi * sTheta * sPhi - sPsi * cPhi) * by + (cPsi * sTheta * cPhi + sPsi * sPhi) * bz;
+                    dy = sPsi * cTheta * bx + (sPsi * sTheta * sPhi + cPsi * cPhi) * by + (sPsi * sTheta * cPhi - cPsi * sPhi) * bz;
+                    dz = -sTheta * bx + cTheta * sPhi * by + cTheta * cPhi * bz;
+                }
+                px += dx;
+                py += dy;
+                pz += dz;
+                if (algorithm == 3 || algorithm == 4 || algorithm == 7 || algorithm == 8) {
+                    ePsi += wz * dt;
+                    eTheta += wy * dt;
+                    ePhi += wx * dt;
+                }
+            }
+            double ex = EntityStateFlyweight.locationX(buffer, start) - px;
+            double ey = EntityStateFlyweight.locationY(buffer, start) - py;
+            double ez = EntityStateFlyweight.locationZ(buffer, start) - pz;
+            if (ex * ex + ey * ey + ez * ez > positionThreshold * positionThreshold) {
+                return true;
+            }
+            return angleBetween(EntityStateFlyweight.psi(buffer, start), ePsi) > orientationThreshold
+                    || angleBetween(EntityStateFlyweight.theta(buffer, start), eTheta) > orientationThreshold
+                    || angleBetween(EntityStateFlyweight.phi(buffer, start), ePhi) > orientationThreshold;
+        }
+
+        private static double angleBetween(double a, double b) {
+            double difference = Math.IEEEremainder(a - b, 2 * Math.PI);
+            return Math.abs(difference);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.cap.dis.filter;
+
+import com.cap.dis.codec.EntityStateFlyweight;
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.service.KafkaProducerService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latest-value conflation of Entity State records between decoding and Kafka. Within each window
+ * only the newest record per entity is kept; at the end of the window the survivors are handed to
+ * {@link KafkaProducerService} in one batch. Published Entity State volume is therefore bounded by
+ * entities × (1000 / window-ms) per second, however often the simulators send.
+ *
+ * <p>Entities are spread over dis.conflation.shards shards, each with its own lock and maps, so the
+ * receivers and decode workers rarely meet on the same lock. Flushing runs on its own thread so other
+ * jobs on Spring's shared scheduler cannot stretch the window.
+ *
+ * <p>Ordering: a conflated Entity State is published at the end of its window, so it can reach Kafka
+ * after a Fire, Detonation or other PDU of the same entity received later in that window. Per-entity
+ * order across PDU types is not kept while conflation is on.
+ */
+@Component
+@ConditionalOnProperty(name = "dis.conflation.enabled", havingValue = "true")
+public class EntityStateConflator {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityStateConflator.class);
+
+    @Value("${dis.conflation.window-ms:100}")
+    private long windowMs = 100;
+
+    // Expected entities per window; the tables grow beyond it when needed
+    @Value("${dis.conflation.expected-entities:4096}")
+    private int expectedEntities = 4096;
+
+    // Rounded up to a power of two; 0 = one per available processor
+    @Value("${dis.conflation.shards:0}")
+    private int shardCount;
+
+    private final KafkaProducerService kafkaProducerService;
+    private ScheduledExecutorService flusher;
+
+    private Shard[] shards;
+    private int shardMask;
+    // Serializes the scheduled flush with the final one on shutdown
+    private final Object flushLock = new Object();
+
+    public EntityStateConflator(KafkaProducerService kafkaProducerService) {
+        this.kafkaProducerService = kafkaProducerService;
+    }
+
+    @PostConstruct
+    public void start() {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        count = Integer.highestOneBit(Math.max(1, count) * 2 - 1);
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(Math.max(8, expectedEntities / count));
+        }
+        shardMask = count - 1;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entity-state-conflation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        log.info("Conflating Entity State records over {} ms windows in {} shards", windowMs, shards.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Holds the record until the end of the current window, replacing any earlier one of the same
+     * entity. Returns false when the record is not conflated (not an Entity State, no EntityID) and
+     * the caller has to send it itself.
+     */
+    public boolean offer(int pduType, long entityId, String topic, String key, Object message, long receivedNanos) {
+        if (pduType != EntityStateFlyweight.PDU_TYPE || entityId == PduBytes.NO_ENTITY) {
+            return false;
+        }
+        Shard shard = shards[shardOf(entityId)];
+        synchronized (shard) {
+            shard.offered++;
+            if (shard.window.put(entityId, topic, key, message, receivedNanos)) {
+                shard.conflated++;
+            }
+        }
+        return true;
+    }
+
+    // High bits of a Fibonacci hash, which the map's slot selection (low bits) does not use
+    private int shardOf(long entityId) {
+        return (int) ((entityId * 0x9E3779B97F4A7C15L) >>> 40) & shardMask;
+    }
+
+    /** Publishes the newest record of every entity seen since the previous flush. */
+    public void flush() {
+        synchronized (flushLock) {
+            for (Shard shard : shards) {
+                flush(shard);
+            }
+        }
+    }
+
+    // Writers use the shard's window; it is swapped with the spare and drained outside the shard lock
+    private void flush(Shard shard) {
+        LatestByEntityMap batch;
+        synchronized (shard) {
+            if (shard.window.size() == 0) {
+                return;
+            }
+            batch = shard.window;
+            shard.window = shard.spare;
+        }
+        try {
+            batch.forEach(this::send);
+        } catch (RuntimeException e) {
+            log.error("Failed to publish conflated Entity State batch of {} entities", batch.size(), e);
+        } finally {
+            batch.clear();
+            shard.spare = batch;
+        }
+    }
+
+    // Latency is measured from the receive of the surviving record, so it includes the time held in the window
+    private void send(long entityId, String topic, String key, Object message, long receivedNanos) {
+        if (message instanceof byte[] bytes) {
+            kafkaProducerService.sendMessage(EntityStateFlyweight.PDU_TYPE, entityId, topic, key, bytes, receivedNanos);
+        } else {
+            kafkaProducerService.sendMessage(EntityStateFlyweight.PDU_TYPE, entityId, topic, key, (String) message, receivedNanos);
+        }
+    }
+
+    public int getPendingEntities() {
+        int pending = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                pending += shard.window.size();
+            }
+        }
+        return pending;
+    }
+
+    /** Entity State records offered since start. */
+    public long getOffered() {
+        long offered = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                offered += shard.offered;
+            }
+        }
+        return offered;
+    }
+
+    /** Records replaced by a newer one of the same entity before they were published. */
+    public long getConflated() {
+        long conflated = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                conflated += shard.conflated;
+            }
+        }
+        return conflated;
+    }
+
+    // Fields guarded by the shard itself; spare is only touched by the flusher
+    private static final class Shard {
+        LatestByEntityMap window;
+        LatestByEntityMap spare;
+        long offered;
+        long conflated;
+
+        Shard(int expectedEntities) {
+            window = new LatestByEntityMap(expectedEntities);
+            spare = new LatestByEntityMap(expectedEntities);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.cap.dis.filter;
+
+/**
+ * Open-addressing map from a packed EntityID ({@link com.cap.dis.codec.PduBytes#primaryEntityId}) to
+ * the newest record of that entity. Keys live in a {@code long[]} and are probed linearly, so a put
+ * neither boxes nor allocates once the table has grown to the number of entities in a window.
+ * Occupied slots are also listed in insertion order, which makes iterating and clearing cost the
+ * number of entries rather than the table size. Not thread-safe.
+ */
+final class LatestByEntityMap {
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long entityId, String topic, String key, Object message, long receivedNanos);
+    }
+
+    private long[] entityIds;
+    private String[] topics;
+    private String[] keys;
+    private Object[] messages; // null marks a free slot
+    private long[] receivedNanos;
+    private int[] usedSlots;
+    private int size;
+    private int mask;
+
+    LatestByEntityMap(int expectedEntities) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedEntities) * 2 - 1) << 1);
+    }
+
+    /** Stores the record for {@code entityId}; returns true when it replaced an older one. */
+    boolean put(long entityId, String topic, String key, Object message, long received) {
+        int slot = slotOf(entityId);
+        boolean replaced = messages[slot] != null;
+        if (!replaced) {
+            if ((size + 1) * 2 > messages.length) {
+                grow();
+                slot = slotOf(entityId);
+            }
+            entityIds[slot] = entityId;
+            usedSlots[size++] = slot;
+        }
+        topics[slot] = topic;
+        keys[slot] = key;
+        messages[slot] = message;
+        receivedNanos[slot] = received;
+        return replaced;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int slot = usedSlots[i];
+            consumer.accept(entityIds[slot], topics[slot], keys[slot], messages[slot], receivedNanos[slot]);
+        }
+    }
+
+    /** Empties the map, keeping its capacity for the next window. */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            int slot = usedSlots[i];
+            topics[slot] = null;
+            keys[slot] = null;
+            messages[slot] = null;
+        }
+        size = 0;
+    }
+
+    int capacity() {
+        return messages.length;
+    }
+
+    // Slot holding entityId, or the free slot where it belongs
+    private int slotOf(long entityId) {
+        int slot = mix(entityId) & mask;
+        while (messages[slot] != null && entityIds[slot] != entityId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldIds = entityIds;
+        String[] oldTopics = topics;
+        String[] oldKeys = keys;
+        Object[] oldMessages = messages;
+        long[] oldReceived = receivedNanos;
+        int[] oldUsed = usedSlots;
+        int oldSize = size;
+        allocate(oldMessages.length * 2);
+        for (int i = 0; i < oldSize; i++) {
+            int old = oldUsed[i];
+            int slot = slotOf(oldIds[old]);
+            entityIds[slot] = oldIds[old];
+            topics[slot] = oldTopics[old];
+            keys[slot] = oldKeys[old];
+            messages[slot] = oldMessages[old];
+            receivedNanos[slot] = oldReceived[old];
+            usedSlots[size++] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        entityIds = new long[capacity];
+        topics = new String[capacity];
+        keys = new String[capacity];
+        messages = new Object[capacity];
+        receivedNanos = new long[capacity];
+        usedSlots = new int[capacity / 2];
+        size = 0;
+        mask = capacity - 1;
+    }
+
+    // Entity numbers are mostly sequential; spread them over the table (Fibonacci hashing)
+    private static int mix(long entityId) {
+        long h = entityId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
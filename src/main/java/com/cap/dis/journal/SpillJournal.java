@@ -0,0 +1,343 @@
+package com.cap.dis.journal;
+
+import com.cap.dis.model.SpillJournalMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only spill log for records that could not be handed to Kafka, stored as memory-mapped,
+ * fixed-size segment files ({@code <id>.spill}) in one directory. Appends go to the newest segment and
+ * roll over to a new one when a record does not fit; records are read back in append order and a
+ * segment is deleted once everything in it has been committed.
+ *
+ * <p>Reading is two-phase so replay can be lossless: {@link #read(int)} returns records without
+ * consuming them and {@link #commit(Batch)} moves the persisted replay position past them only after
+ * Kafka acknowledged the batch. The checkpoint is forced to disk on every commit, so only a crash
+ * between the two replays the batch again (at-least-once). Replayed segments are unmapped before they
+ * are deleted, so their disk space is freed right away rather than when the buffer is collected.
+ *
+ * <pre>
+ * record:  int length (bytes after this field, 0 = no further records in the segment)
+ *          byte kind (0 = UTF-8 text, 1 = bytes)   short pduType (-1 = none)
+ *          short topic length, topic   short key length (-1 = null), key   int value length, value
+ * checkpoint (replay.checkpoint): long segment id, int offset of the next record to replay
+ * </pre>
+ */
+public class SpillJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpillJournal.class);
+    // Unmaps a buffer immediately; null where the JDK does not allow it and unmapping waits for the GC
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+    private static final String SEGMENT_SUFFIX = ".spill";
+    private static final String CHECKPOINT_FILE = "replay.checkpoint";
+    private static final int LENGTH_FIELD = 4;
+    private static final int FIXED_FIELDS = 1 + 2 + 2 + 2 + 4;
+    private static final byte KIND_TEXT = 0;
+    private static final byte KIND_BYTES = 1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private MappedByteBuffer checkpoint;
+
+    private long writeSegment = -1;
+    private int writeOffset;
+    private long readSegment;
+    private int readOffset;
+
+    // Written under the lock, read without it on every send to see whether the journal is in use
+    private volatile long pendingRecords;
+    private long appendedRecords;
+    private long replayedRecords;
+
+    /** Opens the journal in {@code directory}, picking up segments and the replay position of a previous run. */
+    public SpillJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open spill journal in " + directory, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return; // created on the first append
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    // Existing segments keep their own size, even if kafka.spill.segment-size changed since
+                    segments.put(id, map(file, Math.max(Files.size(file), 1)));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        writeSegment = segments.lastKey();
+        writeOffset = endOfRecords(segments.get(writeSegment));
+        readSegment = segments.firstKey();
+        readOffset = 0;
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointFile)) {
+            MappedByteBuffer saved = checkpoint();
+            long savedSegment = saved.getLong(0);
+            if (segments.containsKey(savedSegment)) {
+                readSegment = savedSegment;
+                readOffset = saved.getInt(8);
+            }
+        }
+        pendingRecords = countFrom(readSegment, readOffset);
+        log.info("Recovered spill journal in {}: {} segments, {} records to replay", directory, segments.size(), pendingRecords);
+    }
+
+    public synchronized void append(int pduType, String topic, String key, String value) {
+        append(pduType, topic, key, value.getBytes(StandardCharsets.UTF_8), KIND_TEXT);
+    }
+
+    public synchronized void append(int pduType, String topic, String key, byte[] value) {
+        append(pduType, topic, key, value, KIND_BYTES);
+    }
+
+    private void append(int pduType, String topic, String key, byte[] value, byte kind) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_FIELDS + topicBytes.length + (keyBytes == null ? 0 : keyBytes.length) + value.length;
+        // A zero length field must always fit behind the last record, so readers can see the end
+        if (LENGTH_FIELD + length + LENGTH_FIELD > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit a spill segment of " + segmentSize);
+        }
+        try {
+            if (writeSegment < 0 || writeOffset + LENGTH_FIELD + length + LENGTH_FIELD > segments.get(writeSegment).capacity()) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spill segment in " + directory, e);
+        }
+        ByteBuffer segment = segments.get(writeSegment).duplicate();
+        segment.position(writeOffset + LENGTH_FIELD);
+        segment.put(kind).putShort((short) pduType);
+        segment.putShort((short) topicBytes.length).put(topicBytes);
+        if (keyBytes == null) {
+            segment.putShort((short) -1);
+        } else {
+            segment.putShort((short) keyBytes.length).put(keyBytes);
+        }
+        segment.putInt(value.length).put(value);
+        // Length last: a record only becomes visible once it is completely written
+        segment.putInt(writeOffset, length);
+        writeOffset += LENGTH_FIELD + length;
+        pendingRecords++;
+        appendedRecords++;
+    }
+
+    private void rollSegment() throws IOException {
+        Files.createDirectories(directory);
+        long next = writeSegment + 1;
+        if (writeSegment >= 0) {
+            segments.get(writeSegment).force();
+        } else {
+            readSegment = next;
+            readOffset = 0;
+        }
+        segments.put(next, map(directory.resolve(segmentName(next)), segmentSize));
+        writeSegment = next;
+        writeOffset = 0;
+    }
+
+    /** Up to {@code maxRecords} records from the replay position, oldest first; nothing is consumed. */
+    public synchronized Batch read(int maxRecords) {
+        List<SpilledRecord> records = new ArrayList<>();
+        long segmentId = readSegment;
+        int offset = readOffset;
+        while (records.size() < maxRecords && segments.containsKey(segmentId)) {
+            ByteBuffer segment = segments.get(segmentId);
+            int length = offset + LENGTH_FIELD <= segment.capacity() ? segment.getInt(offset) : 0;
+            if (length == 0) {
+                Long next = segments.higherKey(segmentId);
+                if (segmentId == writeSegment || next == null) {
+                    break;
+                }
+                segmentId = next;
+                offset = 0;
+                continue;
+            }
+            records.add(decode(segment, offset + LENGTH_FIELD));
+            offset += LENGTH_FIELD + length;
+        }
+        return new Batch(records, segmentId, offset);
+    }
+
+    /** Marks a batch from {@link #read(int)} as delivered and frees the segments it finished. */
+    public synchronized void commit(Batch batch) {
+        if (batch.records().isEmpty()) {
+            return;
+        }
+        Map<Long, MappedByteBuffer> finished = segments.headMap(batch.segment(), false);
+        for (Long id : new ArrayList<>(finished.keySet())) {
+            unmap(segments.remove(id));
+            try {
+                Files.deleteIfExists(directory.resolve(segmentName(id)));
+            } catch (IOException e) {
+                log.warn("Could not delete replayed spill segment {}", id, e);
+            }
+        }
+        readSegment = batch.segment();
+        readOffset = batch.offset();
+        pendingRecords -= batch.records().size();
+        replayedRecords += batch.records().size();
+        try {
+            MappedByteBuffer saved = checkpoint();
+            saved.putLong(0, readSegment).putInt(8, readOffset);
+            saved.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write spill checkpoint in " + directory, e);
+        }
+    }
+
+    public boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    public long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized SpillJournalMetrics getMetrics() {
+        long journalBytes = 0;
+        for (MappedByteBuffer segment : segments.values()) {
+            journalBytes += segment.capacity();
+        }
+        return new SpillJournalMetrics(directory.toString(), segments.size(), journalBytes, pendingRecords,
+                appendedRecords, replayedRecords, readSegment, readOffset, writeSegment, writeOffset);
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(MappedByteBuffer::force);
+        if (checkpoint != null) {
+            checkpoint.force();
+        }
+    }
+
+    private SpilledRecord decode(ByteBuffer segment, int index) {
+        ByteBuffer in = segment.duplicate();
+        in.position(index);
+        byte kind = in.get();
+        int pduType = in.getShort();
+        String topic = string(in, in.getShort());
+        short keyLength = in.getShort();
+        String key = keyLength < 0 ? null : string(in, keyLength);
+        byte[] value = new byte[in.getInt()];
+        in.get(value);
+        return new SpilledRecord(pduType, topic, key, kind == KIND_TEXT ? new String(value, StandardCharsets.UTF_8) : value);
+    }
+
+    private static String string(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Offset just past the last complete record of a segment
+    private int endOfRecords(ByteBuffer segment) {
+        int offset = 0;
+        while (offset + LENGTH_FIELD <= segment.capacity()) {
+            int length = segment.getInt(offset);
+            if (length <= 0 || offset + LENGTH_FIELD + length > segment.capacity()) {
+                break;
+            }
+            offset += LENGTH_FIELD + length;
+        }
+        return offset;
+    }
+
+    private long countFrom(long segmentId, int offset) {
+        long count = 0;
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.tailMap(segmentId, true).entrySet()) {
+            ByteBuffer segment = entry.getValue();
+            int position = entry.getKey() == segmentId ? offset : 0;
+            int end = entry.getKey() == writeSegment ? writeOffset : endOfRecords(segment);
+            while (position < end) {
+                position += LENGTH_FIELD + segment.getInt(position);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private MappedByteBuffer checkpoint() throws IOException {
+        if (checkpoint == null) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, 12);
+            }
+        }
+        return checkpoint;
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // Segments are only touched under the lock, so nothing can read a buffer after it is unmapped
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            log.warn("Could not unmap replayed spill segment: {}", e.toString());
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Replayed spill segments stay mapped until garbage collected: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static String segmentName(long id) {
+        return String.format("%020d%s", id, SEGMENT_SUFFIX);
+    }
+
+    /** Records returned by {@link #read(int)} and the position just after the last of them. */
+    public record Batch(List<SpilledRecord> records, long segment, int offset) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.cap.dis.journal;
+
+/**
+ * One record read back from the {@link SpillJournal}: where it was going and its value, a String
+ * for records spilled from the JSON template and a byte[] for everything else.
+ */
+public record SpilledRecord(int pduType, String topic, String key, Object value) {
+}
@@ -0,0 +1,64 @@
+package com.cap.dis.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch over long keys: {@code depth} rows of {@code width} counters, each row indexed by
+ * its own hash of the key. A key's estimate is the smallest of its counters, which never undercounts
+ * and overcounts by at most 2N / width with probability 1 - (1/2)^depth for N events. Memory is
+ * fixed at construction whatever the number of distinct keys; adds are lock-free.
+ */
+public final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L};
+
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int widthBits;
+
+    /** {@code width} is rounded up to a power of two; depth is 1 to 8 rows. */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length || width < 1) {
+            throw new IllegalArgumentException("Invalid Count-Min sketch size: " + depth + " x " + width);
+        }
+        this.depth = depth;
+        this.widthBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(width - 1));
+        this.counters = new AtomicLongArray(depth << widthBits);
+    }
+
+    /** Counts one occurrence of {@code key} and returns its estimate including it. */
+    public long add(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, key)));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+        return estimate;
+    }
+
+    /** Adds the counters of a sketch of the same size, making this one the sketch of both streams. */
+    public void addAll(CountMinSketch other) {
+        if (other.depth != depth || other.widthBits != widthBits) {
+            throw new IllegalArgumentException("Count-Min sketches of different sizes cannot be merged");
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.addAndGet(i, other.counters.get(i));
+        }
+    }
+
+    private int index(int row, long key) {
+        long hash = (key + row) * SEEDS[row];
+        hash = (hash ^ (hash >>> 32)) * 0xD6E8FEB86659FD93L;
+        hash ^= hash >>> 32;
+        return (row << widthBits) | (int) (hash >>> (64 - widthBits));
+    }
+}
@@ -0,0 +1,168 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.codec.PduTypeNames;
+import com.cap.dis.model.PipelineStageMetrics;
+import com.cap.dis.model.SpillJournalMetrics;
+import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.KafkaProducerService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the {@link DisMetricsTracker} and {@link KafkaProducerService} state as Micrometer meters
+ * (scraped at /actuator/prometheus). Every meter is a function meter that reads the existing counters,
+ * histograms and gauges when scraped, so the receive path keeps paying only its striped increments.
+ * Per-PDU-type, shed and pipeline meters are added by {@link #registerNewMeters()} as their series appear.
+ */
+@Component
+public class DisMeterBinder implements MeterBinder {
+
+    private static final long REFRESH_MS = 5000;
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final DisMetricsTracker metricsTracker;
+    private final KafkaProducerService kafkaProducerService;
+
+    private volatile MeterRegistry registry;
+    // Series already registered; scheduler thread only after bindTo
+    private final boolean[] pduTypesBound = new boolean[256];
+    private final boolean[] latenciesBound = new boolean[256];
+    private final boolean[] shedBound = new boolean[256];
+    private final Set<String> pipelineStagesBound = new HashSet<>();
+
+    public DisMeterBinder(DisMetricsTracker metricsTracker, KafkaProducerService kafkaProducerService) {
+        this.metricsTracker = metricsTracker;
+        this.kafkaProducerService = kafkaProducerService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        bindRates(-1, Tags.of("pdu_type", "all", "name", "All PDUs"));
+        bindLatency(-1, Tags.of("pdu_type", "all", "name", "All PDUs"));
+
+        FunctionCounter.builder("dis.kafka.sends", metricsTracker, DisMetricsTracker::getKafkaSendsSucceeded)
+                .tag("result", "success").description("Records acknowledged by Kafka").register(registry);
+        FunctionCounter.builder("dis.kafka.sends", metricsTracker, DisMetricsTracker::getKafkaSendsFailed)
+                .tag("result", "failure").description("Records Kafka failed to take").register(registry);
+        Gauge.builder("dis.kafka.in.flight", kafkaProducerService, KafkaProducerService::getInFlight)
+                .description("Sends handed to the producer and not yet completed").register(registry);
+        Gauge.builder("dis.kafka.backlog", kafkaProducerService, KafkaProducerService::getBacklogSize)
+                .description("Records held back by the shedding policies").register(registry);
+        Gauge.builder("dis.kafka.spill.pending", metricsTracker, DisMeterBinder::spillPending)
+                .description("Spilled records waiting for replay").register(registry);
+
+        FunctionCounter.builder("dis.dead.reckoning.evaluated", metricsTracker,
+                t -> t.getDeadReckoningMetrics().getEvaluated()).register(registry);
+        FunctionCounter.builder("dis.dead.reckoning.suppressed", metricsTracker,
+                t -> t.getDeadReckoningMetrics().getSuppressed()).register(registry);
+
+        // Sampled stage times, so count and total are those of the timed calls only
+        for (TimedStage stage : TimedStage.values()) {
+            LatencyHistogram histogram = metricsTracker.getStageHistogram(stage);
+            FunctionTimer.builder("dis.stage.time", histogram, LatencyHistogram::getCount,
+                            LatencyHistogram::getSum, TimeUnit.NANOSECONDS)
+                    .tag("stage", stage.getLabel()).register(registry);
+        }
+        registerNewMeters();
+    }
+
+    /** Registers meters for PDU types, shed counts and pipeline stages that appeared since the last call. */
+    @Scheduled(fixedRate = REFRESH_MS)
+    public synchronized void registerNewMeters() {
+        if (registry == null) {
+            return;
+        }
+        for (int pduType = 0; pduType < 256; pduType++) {
+            Tags tags = Tags.of("pdu_type", Integer.toString(pduType), "name", PduTypeNames.name(pduType));
+            if (!pduTypesBound[pduType] && metricsTracker.getRateMeter(pduType) != null) {
+                pduTypesBound[pduType] = true;
+                bindRates(pduType, tags);
+            }
+            if (!latenciesBound[pduType] && metricsTracker.getLatencyHistogram(pduType) != null) {
+                latenciesBound[pduType] = true;
+                bindLatency(pduType, tags);
+            }
+            if (!shedBound[pduType] && metricsTracker.getShedCount(pduType) > 0) {
+                shedBound[pduType] = true;
+                int type = pduType;
+                FunctionCounter.builder("dis.kafka.shed", metricsTracker, t -> t.getShedCount(type))
+                        .tags(tags).description("Records dropped or conflated by the shedding policies").register(registry);
+            }
+        }
+        for (PipelineStageMetrics stage : metricsTracker.getPipelineMetrics()) {
+            if (pipelineStagesBound.add(stage.getPipeline() + '/' + stage.getStage())) {
+                Tags tags = Tags.of("pipeline", stage.getPipeline(), "stage", stage.getStage());
+                String pipeline = stage.getPipeline();
+                String name = stage.getStage();
+                Gauge.builder("dis.pipeline.occupancy", metricsTracker,
+                                t -> pipelineStage(t, pipeline, name, PipelineStageMetrics::getOccupancy))
+                        .tags(tags).description("Ring slots waiting for the stage").register(registry);
+                FunctionCounter.builder("dis.pipeline.processed", metricsTracker,
+                                t -> pipelineStage(t, pipeline, name, PipelineStageMetrics::getProcessed))
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("dis.pipeline.stalls", metricsTracker,
+                                t -> pipelineStage(t, pipeline, name, PipelineStageMetrics::getStalls))
+                        .tags(tags).register(registry);
+            }
+        }
+    }
+
+    // Count since start plus the EWMA rates; Prometheus derives windowed rates from the counter itself
+    private void bindRates(int pduType, Tags tags) {
+        RateMeter meter = metricsTracker.getRateMeter(pduType);
+        if (pduType >= 0) {
+            FunctionCounter.builder("dis.pdus.received", meter, RateMeter::getCount)
+                    .tags(tags).description("PDUs received, by PDU type").register(registry);
+        }
+        bindRate(meter, tags, "1m", RateMeter::getOneMinuteRate);
+        bindRate(meter, tags, "5m", RateMeter::getFiveMinuteRate);
+        bindRate(meter, tags, "15m", RateMeter::getFifteenMinuteRate);
+    }
+
+    private void bindRate(RateMeter meter, Tags tags, String window, ToDoubleFunction<RateMeter> rate) {
+        Gauge.builder("dis.pdus.rate", meter, rate).tags(tags).tag("window", window)
+                .baseUnit("pdus/s").description("EWMA receive rate").register(registry);
+    }
+
+    // Receive-to-ack latency: count and total as a timer, quantiles read from the tracker's histogram
+    private void bindLatency(int pduType, Tags tags) {
+        LatencyHistogram histogram = metricsTracker.getLatencyHistogram(pduType);
+        FunctionTimer.builder("dis.kafka.latency", histogram, LatencyHistogram::getCount,
+                        LatencyHistogram::getSum, TimeUnit.NANOSECONDS)
+                .tags(tags).description("Receive to Kafka acknowledgement").register(registry);
+        for (double quantile : QUANTILES) {
+            Gauge.builder("dis.kafka.latency.quantile", histogram, h -> h.valueAtQuantile(quantile) / 1e9)
+                    .tags(tags).tag("quantile", Double.toString(quantile)).baseUnit("seconds").register(registry);
+        }
+        Gauge.builder("dis.kafka.latency.max", histogram, h -> h.getMax() / 1e9)
+                .tags(tags).baseUnit("seconds").register(registry);
+    }
+
+    private static double spillPending(DisMetricsTracker tracker) {
+        SpillJournalMetrics journal = tracker.getSpillJournalMetrics();
+        return journal == null ? 0 : journal.getPendingRecords();
+    }
+
+    private static double pipelineStage(DisMetricsTracker tracker, String pipeline, String stage,
+                                        ToLongFunction<PipelineStageMetrics> value) {
+        for (PipelineStageMetrics metrics : tracker.getPipelineMetrics()) {
+            if (metrics.getPipeline().equals(pipeline) && metrics.getStage().equals(stage)) {
+                return value.applyAsLong(metrics);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.cap.dis.metrics;
+
+/**
+ * Exponentially weighted moving average of an event rate, in the style of the Unix load average:
+ * fed the events counted since the previous update, decaying with a time constant of the window.
+ * The decay is computed from the actual time between updates, so a late tick does not skew it.
+ * Updated by one thread, read by any.
+ */
+public final class Ewma {
+
+    private final double windowMillis;
+    private volatile double ratePerSecond;
+    private boolean initialized;
+
+    public Ewma(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public static Ewma overMinutes(int minutes) {
+        return new Ewma(minutes * 60_000L);
+    }
+
+    /** Folds in {@code count} events that happened over the last {@code elapsedMillis}. */
+    public void update(long count, long elapsedMillis) {
+        if (elapsedMillis <= 0) {
+            return;
+        }
+        double instantRate = count * 1000.0 / elapsedMillis;
+        if (!initialized) {
+            ratePerSecond = instantRate;
+            initialized = true;
+            return;
+        }
+        double alpha = 1 - Math.exp(-elapsedMillis / windowMillis);
+        ratePerSecond += alpha * (instantRate - ratePerSecond);
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+}
@@ -0,0 +1,154 @@
+package com.cap.dis.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K of a stream of long keys in fixed memory: a Space-Saving summary of {@code capacity} counters
+ * finds the candidates, and a {@link CountMinSketch} over all keys tightens their counts. Space-Saving
+ * hands the smallest counter to a new key and overcounts it by at most that counter's previous value;
+ * the sketch bounds the same key independently, and the reported count is the smaller of the two.
+ * Every key whose true count exceeds N / capacity is guaranteed to be in the summary.
+ *
+ * <p>Each key may carry a sample object (e.g. the source address) kept while the key is tracked,
+ * so a label can be shown for keys that are not reversible.
+ *
+ * <p>Summaries of disjoint parts of a stream, e.g. one per thread, can be combined with
+ * {@link #merge(List)} so the writers never share a lock.
+ */
+public final class HeavyHitters {
+
+    private final CountMinSketch sketch;
+    private final int sketchDepth;
+    private final int sketchWidth;
+    // Space-Saving counters; guarded by this. Lookups are linear scans, which for a few dozen slots
+    // beat a hash map and allocate nothing.
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Object[] samples;
+    private int size;
+    private long total;
+
+    public HeavyHitters(int capacity, int sketchDepth, int sketchWidth) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        sketch = new CountMinSketch(sketchDepth, sketchWidth);
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        samples = new Object[capacity];
+    }
+
+    public void offer(long key, Object sample) {
+        sketch.add(key);
+        synchronized (this) {
+            total++;
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    counts[i]++;
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (size < keys.length) {
+                keys[size] = key;
+                counts[size] = 1;
+                errors[size] = 0;
+                samples[size++] = sample;
+                return;
+            }
+            // Evict the smallest counter: the new key inherits its count as the overcount bound
+            keys[min] = key;
+            errors[min] = counts[min];
+            counts[min]++;
+            samples[min] = sample;
+        }
+    }
+
+    /** Events offered so far. */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /** Up to {@code n} tracked keys by descending count. */
+    public List<HeavyHitter> top(int n) {
+        List<HeavyHitter> hitters = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < size; i++) {
+                hitters.add(new HeavyHitter(keys[i], counts[i], errors[i], samples[i]));
+            }
+        }
+        List<HeavyHitter> tightened = new ArrayList<>(hitters.size());
+        for (HeavyHitter hitter : hitters) {
+            long estimate = Math.min(hitter.count(), sketch.estimate(hitter.key()));
+            long lowerBound = Math.max(0, hitter.count() - hitter.error());
+            tightened.add(new HeavyHitter(hitter.key(), estimate, estimate - Math.min(estimate, lowerBound), hitter.sample()));
+        }
+        tightened.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return tightened.size() > n ? tightened.subList(0, n) : tightened;
+    }
+
+    /**
+     * Summary of the union of the streams of {@code parts}, which must all have the same capacity and
+     * sketch size. A key's count and error are the sums over the parts; a full part that does not track
+     * the key adds its smallest count to both, since the key may have occurred up to that often there.
+     * The largest {@code capacity} keys are kept. Parts may still be written to while merging.
+     */
+    public static HeavyHitters merge(List<HeavyHitters> parts) {
+        HeavyHitters first = parts.get(0);
+        HeavyHitters merged = new HeavyHitters(first.keys.length, first.sketchDepth, first.sketchWidth);
+        Map<Long, long[]> union = new HashMap<>(); // key -> count, error, sum of the untracked bounds it is covered by
+        Map<Long, Object> samples = new HashMap<>();
+        long untrackedBounds = 0;
+        for (HeavyHitters part : parts) {
+            merged.sketch.addAll(part.sketch);
+            synchronized (part) {
+                merged.total += part.total;
+                long untracked = 0;
+                if (part.size == part.keys.length) {
+                    untracked = Long.MAX_VALUE;
+                    for (int i = 0; i < part.size; i++) {
+                        untracked = Math.min(untracked, part.counts[i]);
+                    }
+                }
+                untrackedBounds += untracked;
+                for (int i = 0; i < part.size; i++) {
+                    long[] entry = union.computeIfAbsent(part.keys[i], key -> new long[3]);
+                    entry[0] += part.counts[i];
+                    entry[1] += part.errors[i];
+                    entry[2] += untracked;
+                    samples.putIfAbsent(part.keys[i], part.samples[i]);
+                }
+            }
+        }
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>(union.entrySet());
+        for (Map.Entry<Long, long[]> entry : entries) {
+            long[] value = entry.getValue();
+            long missing = untrackedBounds - value[2];
+            value[0] += missing;
+            value[1] += missing;
+        }
+        entries.sort(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> entry.getValue()[0]).reversed());
+        for (Map.Entry<Long, long[]> entry : entries.subList(0, Math.min(entries.size(), merged.keys.length))) {
+            merged.keys[merged.size] = entry.getKey();
+            merged.counts[merged.size] = entry.getValue()[0];
+            merged.errors[merged.size] = entry.getValue()[1];
+            merged.samples[merged.size++] = samples.get(entry.getKey());
+        }
+        return merged;
+    }
+
+    /** A tracked key: estimated count and how much of it may be overcount. */
+    public record HeavyHitter(long key, long count, long error, Object sample) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.model.LatencyMetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of nanosecond durations. Every power of two is split into 16
+ * sub-buckets, so a recorded value is reported with at most 1/16 (6.25 %) relative error while the
+ * whole long range fits in 960 counters. Recording is one array increment, two {@link LongAdder}
+ * adds (count and sum) and, for a new maximum of the recording thread's stripe, a CAS; nothing is
+ * allocated and callback threads do not meet on a shared counter. Percentiles are read from a pass
+ * over the counters, so concurrent recording only makes a snapshot slightly inconsistent, never wrong
+ * by more than those records.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 8;
+    // Stripe maxima are a cache line (8 longs) apart so stripes do not share one
+    private static final int MAX_STRIDE = 8;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLongArray maxima = new AtomicLongArray(MAX_STRIPES * MAX_STRIDE);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.increment();
+        sum.add(value);
+        int stripe = ((int) Thread.currentThread().getId() & (MAX_STRIPES - 1)) * MAX_STRIDE;
+        long currentMax = maxima.get(stripe);
+        while (value > currentMax && !maxima.compareAndSet(stripe, currentMax, value)) {
+            currentMax = maxima.get(stripe);
+        }
+    }
+
+    // Values below 16 get a bucket each; above, the top bit picks the power of two and the next 4 bits the sub-bucket
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    /** Sum of all recorded values, in nanoseconds. */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /** Largest value recorded, in nanoseconds. */
+    public long getMax() {
+        long highest = 0;
+        for (int stripe = 0; stripe < MAX_STRIPES; stripe++) {
+            highest = Math.max(highest, maxima.get(stripe * MAX_STRIDE));
+        }
+        return highest;
+    }
+
+    /** Value at or below which {@code quantile} (0..1] of the recorded values lie, in nanoseconds. */
+    public long valueAtQuantile(double quantile) {
+        return valueAtQuantiles(quantile)[0];
+    }
+
+    private long[] valueAtQuantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        long highest = getMax();
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[q] = Math.min(highestValueIn(i), highest);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    public LatencyMetrics snapshot(String name) {
+        long count = total.sum();
+        long[] percentiles = valueAtQuantiles(0.5, 0.9, 0.99, 0.999);
+        return new LatencyMetrics(
+                name,
+                count,
+                micros(percentiles[0]),
+                micros(percentiles[1]),
+                micros(percentiles[2]),
+                micros(percentiles[3]),
+                micros(getMax()),
+                count == 0 ? 0.0 : sum.sum() / (double) count / 1000.0);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
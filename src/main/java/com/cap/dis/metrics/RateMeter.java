@@ -0,0 +1,89 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.model.RateMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event rates of one series (all PDUs, or one PDU type) at several resolutions: sliding windows of
+ * 1 s, 10 s and 1 min from one-second buckets, 5 and 15 min from ten-second buckets, and 1/5/15 min
+ * EWMAs advanced by {@link #tick(long)}. Window rates use completed buckets only, so the partial
+ * current second does not pull them down. A mark costs three striped increments; nothing per event is
+ * retained.
+ */
+public final class RateMeter {
+
+    // One spare bucket each: the current (partial) bucket occupies a slot but is left out of the rates
+    // (lastMinuteCount is the one read that includes it)
+    private final RollingCounter seconds = new RollingCounter(61);
+    private final RollingCounter tenSeconds = new RollingCounter(91, 10_000);
+    private final LongAdder count = new LongAdder();
+
+    private final Ewma oneMinute = Ewma.overMinutes(1);
+    private final Ewma fiveMinutes = Ewma.overMinutes(5);
+    private final Ewma fifteenMinutes = Ewma.overMinutes(15);
+    // Tick thread only
+    private long lastTickCount;
+    private long lastTickMs;
+
+    public void mark(long nowMs) {
+        seconds.increment(nowMs);
+        tenSeconds.increment(nowMs);
+        count.increment();
+    }
+
+    /** Advances the EWMAs with what was marked since the previous tick. Call from one thread. */
+    public void tick(long nowMs) {
+        long total = count.sum();
+        if (lastTickMs != 0) {
+            long elapsed = nowMs - lastTickMs;
+            long events = total - lastTickCount;
+            oneMinute.update(events, elapsed);
+            fiveMinutes.update(events, elapsed);
+            fifteenMinutes.update(events, elapsed);
+        }
+        lastTickCount = total;
+        lastTickMs = nowMs;
+    }
+
+    /**
+     * Events in the last 60 full seconds plus the current partial one, so every event of the trailing
+     * 60 s is counted (and at most one second more) as with the per-event window it replaces.
+     */
+    public long lastMinuteCount(long nowMs) {
+        return seconds.sum(nowMs, 61);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    // EWMA rates per second as of the last tick
+    public double getOneMinuteRate() {
+        return oneMinute.getRatePerSecond();
+    }
+
+    public double getFiveMinuteRate() {
+        return fiveMinutes.getRatePerSecond();
+    }
+
+    public double getFifteenMinuteRate() {
+        return fifteenMinutes.getRatePerSecond();
+    }
+
+    public RateMetrics snapshot(String name, long nowMs) {
+        long previousSecond = nowMs - 1000;
+        long previousTenSeconds = nowMs - 10_000;
+        return new RateMetrics(
+                name,
+                count.sum(),
+                seconds.sum(previousSecond, 1),
+                seconds.sum(previousSecond, 10) / 10.0,
+                seconds.sum(previousSecond, 60) / 60.0,
+                tenSeconds.sum(previousTenSeconds, 30) / 300.0,
+                tenSeconds.sum(previousTenSeconds, 90) / 900.0,
+                oneMinute.getRatePerSecond(),
+                fiveMinutes.getRatePerSecond(),
+                fifteenMinutes.getRatePerSecond());
+    }
+}
@@ -0,0 +1,81 @@
+package com.cap.dis.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event count over a sliding window held in a fixed ring of time buckets (one second each unless
+ * stated otherwise). Each bucket is a striped {@link LongAdder}, so concurrent receivers increment
+ * without contending on one cache line, and remembers the epoch (bucket number since 1970) it
+ * currently counts. A bucket is reset lazily by the first increment of a new epoch that maps to it;
+ * reads skip buckets whose epoch fell out of the window. Memory is fixed at construction, increments
+ * are O(1) and allocation-free, reads are O(buckets).
+ *
+ * <p>An increment racing with the reset of its bucket at a bucket boundary may be lost; the window
+ * count is exact otherwise.
+ */
+public final class RollingCounter {
+
+    private final LongAdder[] buckets;
+    private final AtomicLongArray epochs;
+    private final long bucketMillis;
+
+    /** Counter over the last {@code seconds} seconds, the current (partial) second included. */
+    public RollingCounter(int seconds) {
+        this(seconds, 1000);
+    }
+
+    /** Counter over {@code bucketCount} buckets of {@code bucketMillis} each, the current (partial) one included. */
+    public RollingCounter(int bucketCount, long bucketMillis) {
+        if (bucketCount < 1 || bucketMillis < 1) {
+            throw new IllegalArgumentException("Window must have at least one bucket: " + bucketCount + " x " + bucketMillis + " ms");
+        }
+        this.bucketMillis = bucketMillis;
+        buckets = new LongAdder[bucketCount];
+        epochs = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new LongAdder();
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    public void increment(long nowMs) {
+        bucketFor(Math.floorDiv(nowMs, bucketMillis)).increment();
+    }
+
+    public void add(long nowMs, long count) {
+        bucketFor(Math.floorDiv(nowMs, bucketMillis)).add(count);
+    }
+
+    private LongAdder bucketFor(long epoch) {
+        int index = (int) Math.floorMod(epoch, buckets.length);
+        long current = epochs.get(index);
+        if (current < epoch && epochs.compareAndSet(index, current, epoch)) {
+            buckets[index].reset();
+        }
+        return buckets[index];
+    }
+
+    /** Events in the whole window ending with the bucket of {@code nowMs}. */
+    public long sum(long nowMs) {
+        return sum(nowMs, buckets.length);
+    }
+
+    /** Events in the last {@code bucketCount} buckets (at most the window), the bucket of {@code nowMs} included. */
+    public long sum(long nowMs, int bucketCount) {
+        long current = Math.floorDiv(nowMs, bucketMillis);
+        long oldest = current - Math.min(bucketCount, buckets.length) + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            long epoch = epochs.get(i);
+            if (epoch >= oldest && epoch <= current) {
+                total += buckets[i].sum();
+            }
+        }
+        return total;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+}
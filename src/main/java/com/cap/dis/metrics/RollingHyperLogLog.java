@@ -0,0 +1,111 @@
+package com.cap.dis.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distinct-count estimate over a sliding window: a ring of time buckets, each a HyperLogLog of
+ * 2^precision registers. Buckets are reset lazily like {@link RollingCounter}'s; a window estimate
+ * merges the registers (element-wise max) of the buckets inside it, so memory is fixed whatever the
+ * number of distinct keys. The standard error is about 1.04 / sqrt(2^precision), 3.3% at precision 10.
+ *
+ * <p>Adds are lock-free and only write when they raise a register. An add racing with the reset of
+ * its bucket at a bucket boundary may be lost.
+ */
+public final class RollingHyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private final long bucketMillis;
+    // bucketCount rows of registerCount registers
+    private final AtomicIntegerArray registers;
+    private final AtomicLongArray epochs;
+
+    public RollingHyperLogLog(int bucketCount, long bucketMillis, int precision) {
+        if (bucketCount < 1 || bucketMillis < 1 || precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Invalid HyperLogLog window: " + bucketCount + " x " + bucketMillis
+                    + " ms, precision " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.bucketMillis = bucketMillis;
+        registers = new AtomicIntegerArray(bucketCount * registerCount);
+        epochs = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /** Counts {@code key} (any long, e.g. a packed EntityID) in the bucket of {@code nowMs}. */
+    public void add(long nowMs, long key) {
+        addHash(nowMs, hash(key));
+    }
+
+    /** Same as {@link #add(long, long)} for a key already passed through {@link #hash(long)}. */
+    public void addHash(long nowMs, long hash) {
+        long epoch = Math.floorDiv(nowMs, bucketMillis);
+        int bucket = (int) Math.floorMod(epoch, epochs.length());
+        long current = epochs.get(bucket);
+        if (current < epoch && epochs.compareAndSet(bucket, current, epoch)) {
+            int first = bucket * registerCount;
+            for (int i = first; i < first + registerCount; i++) {
+                registers.set(i, 0);
+            }
+        }
+        // Top bits pick the register, the position of the first one bit in the rest is the rank
+        int index = bucket * registerCount + (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        int seen = registers.get(index);
+        while (rank > seen && !registers.compareAndSet(index, seen, rank)) {
+            seen = registers.get(index);
+        }
+    }
+
+    /** Estimated distinct keys in the last {@code bucketCount} buckets (at most the window), the bucket of {@code nowMs} included. */
+    public long estimate(long nowMs, int bucketCount) {
+        long current = Math.floorDiv(nowMs, bucketMillis);
+        long oldest = current - Math.min(bucketCount, epochs.length()) + 1;
+        int[] merged = new int[registerCount];
+        for (int bucket = 0; bucket < epochs.length(); bucket++) {
+            long epoch = epochs.get(bucket);
+            if (epoch >= oldest && epoch <= current) {
+                int first = bucket * registerCount;
+                for (int i = 0; i < registerCount; i++) {
+                    merged[i] = Math.max(merged[i], registers.get(first + i));
+                }
+            }
+        }
+        return estimate(merged);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    // Raw HyperLogLog estimate, with linear counting while many registers are still empty
+    static long estimate(int[] registers) {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (int register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /** 64-bit mix (MurmurHash3 finalizer) so that sequential IDs spread over all registers. */
+    public static long hash(long key) {
+        long h = key;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,26 @@
+package com.cap.dis.metrics;
+
+/** Steps of the receive path that {@code DisMetricsTracker} times separately. */
+public enum TimedStage {
+
+    /** Blocked in socket/channel receive, waiting for the next datagram. */
+    SOCKET_WAIT("socket-wait"),
+    /** PduFactory.createPdu for types the flyweight path does not cover. */
+    UNMARSHAL("unmarshal"),
+    /** Per-type counting and the header / dead-reckoning filters. */
+    DISPATCH("dispatch"),
+    /** PDU to JSON (String or bytes), flyweight or reflective. */
+    SERIALIZE("serialize"),
+    /** KafkaProducerService.sendMessage: shedding, then the hand-off to the producer buffer. */
+    KAFKA_ENQUEUE("kafka-enqueue");
+
+    private final String label;
+
+    TimedStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
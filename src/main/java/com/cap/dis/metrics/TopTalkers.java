@@ -0,0 +1,142 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.codec.DisHeader;
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.model.TalkerMetrics;
+import com.cap.dis.model.TopTalkersMetrics;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Heaviest senders of PDUs by exercise, site/application, source address and entity, in tumbling
+ * windows closed by {@link #rotate(long)}. Each breakdown is a {@link HeavyHitters} of fixed size, so
+ * memory stays the same however many simulators, entities or addresses show up. Reports cover the
+ * last completed window, or the current one until the first window closes.
+ *
+ * <p>Writers are spread over stripes by thread, each with its own summaries, so receivers and decode
+ * workers do not contend on a lock; the stripes are merged when the window closes. PDUs recorded
+ * while a window is being rotated may be lost.
+ */
+public final class TopTalkers {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int MAX_STRIPES = 8;
+
+    private final int capacity;
+    private final int stripeMask;
+    private volatile Window current;
+    private volatile Closed completed;
+
+    /** Tracks {@code capacity} candidates per breakdown; keys above 1/capacity of the traffic are always found. */
+    public TopTalkers(int capacity, long nowMs) {
+        this(capacity, Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()), nowMs);
+    }
+
+    /** Same, with {@code stripes} (rounded up to a power of two) independent writer stripes. */
+    public TopTalkers(int capacity, int stripes, long nowMs) {
+        this.capacity = capacity;
+        this.stripeMask = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1) - 1;
+        this.current = new Window(capacity, stripeMask + 1, nowMs);
+    }
+
+    /** Counts a datagram whose PDU starts at {@code start}; {@code source} may be null. */
+    public void record(ByteBuffer buffer, int start, InetAddress source) {
+        Summary stripe = current.stripes[(int) Thread.currentThread().getId() & stripeMask];
+        if (source != null) {
+            // Inet4Address hashes to its address; IPv6 keys are hashes, labelled by the retained address
+            stripe.sourceAddresses.offer(source.hashCode() & 0xFFFFFFFFL, source);
+        }
+        if (buffer.limit() - start < DisHeader.SIZE) {
+            return;
+        }
+        stripe.exercises.offer(DisHeader.exerciseId(buffer, start), null);
+        long entityId = PduBytes.primaryEntityId(buffer, start);
+        if (entityId != PduBytes.NO_ENTITY) {
+            stripe.siteApplications.offer(entityId >>> 16, null);
+            stripe.entities.offer(entityId, null);
+        }
+    }
+
+    /** Closes the current window, merging its stripes, and starts a new one. Call from one thread. */
+    public void rotate(long nowMs) {
+        Window closing = current;
+        current = new Window(capacity, stripeMask + 1, nowMs);
+        completed = new Closed(closing.startMs, nowMs, Summary.merge(closing.stripes));
+    }
+
+    public TopTalkersMetrics snapshot(int n, long nowMs) {
+        Closed window = completed;
+        boolean complete = window != null;
+        if (!complete) {
+            Window open = current;
+            window = new Closed(open.startMs, nowMs, Summary.merge(open.stripes));
+        }
+        long windowMillis = Math.max(1, window.endMs - window.startMs);
+        Summary summary = window.summary;
+        // Shares: the header breakdowns count every PDU with a header, addresses every datagram with a source
+        long total = summary.exercises.getTotal();
+        return new TopTalkersMetrics(window.startMs, windowMillis, complete, total,
+                talkers(summary.exercises, n, total, windowMillis, key -> Long.toString(key)),
+                talkers(summary.siteApplications, n, total, windowMillis,
+                        key -> (key >>> 16) + ":" + (key & 0xFFFF)),
+                talkers(summary.sourceAddresses, n, summary.sourceAddresses.getTotal(), windowMillis, null),
+                talkers(summary.entities, n, total, windowMillis,
+                        key -> (key >>> 32) + ":" + ((key >>> 16) & 0xFFFF) + ":" + (key & 0xFFFF)));
+    }
+
+    // label null: the retained sample names the key
+    private static List<TalkerMetrics> talkers(HeavyHitters hitters, int n, long total, long windowMillis,
+                                               LongFunction<String> label) {
+        List<TalkerMetrics> talkers = new ArrayList<>();
+        for (HeavyHitters.HeavyHitter hitter : hitters.top(n)) {
+            String name = label != null ? label.apply(hitter.key())
+                    : hitter.sample() instanceof InetAddress address ? address.getHostAddress() : Long.toString(hitter.key());
+            talkers.add(new TalkerMetrics(name, hitter.count(), hitter.error(), hitter.count() * 1000.0 / windowMillis,
+                    total == 0 ? 0.0 : (double) hitter.count() / total));
+        }
+        return talkers;
+    }
+
+    private static final class Window {
+        final long startMs;
+        final Summary[] stripes;
+
+        Window(int capacity, int stripeCount, long startMs) {
+            this.startMs = startMs;
+            stripes = new Summary[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Summary(new HeavyHitters(capacity, SKETCH_DEPTH, SKETCH_WIDTH),
+                        new HeavyHitters(capacity, SKETCH_DEPTH, SKETCH_WIDTH),
+                        new HeavyHitters(capacity, SKETCH_DEPTH, SKETCH_WIDTH),
+                        new HeavyHitters(capacity, SKETCH_DEPTH, SKETCH_WIDTH));
+            }
+        }
+    }
+
+    private record Closed(long startMs, long endMs, Summary summary) {
+    }
+
+    private record Summary(HeavyHitters exercises, HeavyHitters siteApplications, HeavyHitters sourceAddresses,
+                           HeavyHitters entities) {
+
+        static Summary merge(Summary[] stripes) {
+            List<HeavyHitters> exercises = new ArrayList<>();
+            List<HeavyHitters> siteApplications = new ArrayList<>();
+            List<HeavyHitters> sourceAddresses = new ArrayList<>();
+            List<HeavyHitters> entities = new ArrayList<>();
+            for (Summary stripe : stripes) {
+                exercises.add(stripe.exercises);
+                siteApplications.add(stripe.siteApplications);
+                sourceAddresses.add(stripe.sourceAddresses);
+                entities.add(stripe.entities);
+            }
+            return new Summary(HeavyHitters.merge(exercises), HeavyHitters.merge(siteApplications),
+                    HeavyHitters.merge(sourceAddresses), HeavyHitters.merge(entities));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.cap.dis.model;
+
+import lombok.Value;
+
+@Value
+public class ActiveEntityMetrics {
+    long lastMinute;       // Distinct EntityIDs seen in (at least) the last 60 s, HyperLogLog estimate
+    long lastFiveMinutes;  // ... in (at least) the last 5 min
+}
@@ -0,0 +1,15 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadReckoningMetrics {
+    private long evaluated;           // Entity State PDUs checked against their dead-reckoned track
+    private long published;           // ... forwarded (threshold exceeded, heartbeat, new entity)
+    private long suppressed;          // ... dropped as predictable
+    private double suppressionRatio;  // suppressed / evaluated, 0 when nothing was evaluated
+}
@@ -0,0 +1,19 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyMetrics {
+    private String name;        // "All PDUs" or the DIS name of the PDU type
+    private long count;         // Records acknowledged by Kafka since start
+    private long p50Micros;     // Receive-to-acknowledgement latency percentiles (within 6.25 %)
+    private long p90Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+    private double meanMicros;
+}
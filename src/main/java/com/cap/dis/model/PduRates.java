@@ -0,0 +1,15 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PduRates {
+    private RateMetrics total;                   // All PDUs
+    private Map<Integer, RateMetrics> pduTypes;  // Per PDU type byte, only types received since start
+}
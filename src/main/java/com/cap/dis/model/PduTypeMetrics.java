@@ -0,0 +1,14 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PduTypeMetrics {
+    private String name;                 // DIS name of the PDU type, e.g. "Entity State", "Signal", "IFF"
+    private long pdusInLastSixtySeconds; // Received in the last 60 seconds
+    private long pdusSinceStart;         // Received since the service started
+}
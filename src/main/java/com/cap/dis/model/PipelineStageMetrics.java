@@ -0,0 +1,17 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineStageMetrics {
+    private String pipeline;  // Receiver the pipeline belongs to, e.g. "udp-receiver-0"
+    private String stage;     // receive, decode, serialize or publish
+    private long occupancy;   // Slots waiting for this stage (for receive: slots in use across the ring)
+    private long capacity;    // Ring size
+    private long processed;   // Slots this stage has completed
+    private long stalls;      // Times the stage had to wait (receive: ring full, others: nothing to do)
+}
@@ -0,0 +1,21 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateMetrics {
+    private String name;               // "All PDUs" or the DIS name of the PDU type
+    private long count;                // Received since start
+    private double ratePerSecond1s;    // Over the last completed second
+    private double ratePerSecond10s;   // Sliding windows over completed buckets
+    private double ratePerSecond1m;
+    private double ratePerSecond5m;
+    private double ratePerSecond15m;
+    private double ewmaPerSecond1m;    // Exponentially weighted moving averages, updated every 5 s
+    private double ewmaPerSecond5m;
+    private double ewmaPerSecond15m;
+}
@@ -1,43 +1,40 @@
 package com.cap.dis.model;
 
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable: one instance is published by DisMetricsTracker and shared by every reader
+@Value
 public class RealTimeMetrics {
-    private long lastPduReceivedTimestampMs; // Timestamp of the absolute latest PDU in milliseconds
-    private long pdusInLastSixtySeconds;     // Count of PDUs received in the strictly last 60 seconds
-    private double averagePduRatePerSecondLastSixtySeconds; // Calculated: pdusInLastSixtySeconds / 60.0
+    long lastPduReceivedTimestampMs; // Timestamp of the absolute latest PDU in milliseconds
+    long pdusInLastSixtySeconds;     // Count of PDUs received in the strictly last 60 seconds
+    double averagePduRatePerSecondLastSixtySeconds; // Calculated: pdusInLastSixtySeconds / 60.0
     
     // Counts for specific PDU types
-    private long entityStatePdusInLastSixtySeconds;
-    private long fireEventPdusInLastSixtySeconds;
-    private long collisionPdusInLastSixtySeconds;
-    private long detonationPdusInLastSixtySeconds;
-    private long dataPdusInLastSixtySeconds;
-    private long actionRequestPdusInLastSixtySeconds;
-    private long startResumePdusInLastSixtySeconds;
-    private long setDataPdusInLastSixtySeconds;
-    private long designatorPdusInLastSixtySeconds;
-    private long electromagneticEmissionsPdusInLastSixtySeconds;
+    long entityStatePdusInLastSixtySeconds;
+    long fireEventPdusInLastSixtySeconds;
+    long collisionPdusInLastSixtySeconds;
+    long detonationPdusInLastSixtySeconds;
+    long dataPdusInLastSixtySeconds;
+    long actionRequestPdusInLastSixtySeconds;
+    long startResumePdusInLastSixtySeconds;
+    long setDataPdusInLastSixtySeconds;
+    long designatorPdusInLastSixtySeconds;
+    long electromagneticEmissionsPdusInLastSixtySeconds;
+
+    // Distinct primary EntityIDs (HyperLogLog estimates, about 3% error)
+    long activeEntitiesLastMinute;
+    long activeEntitiesLastFiveMinutes;
+    Map<Integer, ActiveEntityMetrics> activeEntitiesByExercise; // Keyed by exercise ID
+    Map<Integer, ActiveEntityMetrics> activeEntitiesByPduType;  // Keyed by PDU type byte
     
     // Constructor for backward compatibility
     public RealTimeMetrics(long lastPduReceivedTimestampMs, long pdusInLastSixtySeconds, 
                           double averagePduRatePerSecondLastSixtySeconds) {
-        this.lastPduReceivedTimestampMs = lastPduReceivedTimestampMs;
-        this.pdusInLastSixtySeconds = pdusInLastSixtySeconds;
-        this.averagePduRatePerSecondLastSixtySeconds = averagePduRatePerSecondLastSixtySeconds;
-        this.entityStatePdusInLastSixtySeconds = 0;
-        this.fireEventPdusInLastSixtySeconds = 0;
-        this.collisionPdusInLastSixtySeconds = 0;
-        this.detonationPdusInLastSixtySeconds = 0;
-        this.dataPdusInLastSixtySeconds = 0;
-        this.actionRequestPdusInLastSixtySeconds = 0;
-        this.startResumePdusInLastSixtySeconds = 0;
-        this.setDataPdusInLastSixtySeconds = 0;
-        this.designatorPdusInLastSixtySeconds = 0;
-        this.electromagneticEmissionsPdusInLastSixtySeconds = 0;
+        this(lastPduReceivedTimestampMs, pdusInLastSixtySeconds, averagePduRatePerSecondLastSixtySeconds, 0, 0, 0, 0);
     }
     
     // Constructor for original four PDU types
@@ -47,22 +44,12 @@ public class RealTimeMetrics {
                           long fireEventPdusInLastSixtySeconds,
                           long collisionPdusInLastSixtySeconds,
                           long detonationPdusInLastSixtySeconds) {
-        this.lastPduReceivedTimestampMs = lastPduReceivedTimestampMs;
-        this.pdusInLastSixtySeconds = pdusInLastSixtySeconds;
-        this.averagePduRatePerSecondLastSixtySeconds = averagePduRatePerSecondLastSixtySeconds;
-        this.entityStatePdusInLastSixtySeconds = entityStatePdusInLastSixtySeconds;
-        this.fireEventPdusInLastSixtySeconds = fireEventPdusInLastSixtySeconds;
-        this.collisionPdusInLastSixtySeconds = collisionPdusInLastSixtySeconds;
-        this.detonationPdusInLastSixtySeconds = detonationPdusInLastSixtySeconds;
-        this.dataPdusInLastSixtySeconds = 0;
-        this.actionRequestPdusInLastSixtySeconds = 0;
-        this.startResumePdusInLastSixtySeconds = 0;
-        this.setDataPdusInLastSixtySeconds = 0;
-        this.designatorPdusInLastSixtySeconds = 0;
-        this.electromagneticEmissionsPdusInLastSixtySeconds = 0;
+        this(lastPduReceivedTimestampMs, pdusInLastSixtySeconds, averagePduRatePerSecondLastSixtySeconds,
+                entityStatePdusInLastSixtySeconds, fireEventPdusInLastSixtySeconds, collisionPdusInLastSixtySeconds,
+                detonationPdusInLastSixtySeconds, 0, 0, 0, 0, 0, 0);
     }
     
-    // Full constructor with all PDU types
+    // Constructor with all PDU types, without active entities
     public RealTimeMetrics(long lastPduReceivedTimestampMs, long pdusInLastSixtySeconds, 
                           double averagePduRatePerSecondLastSixtySeconds,
                           long entityStatePdusInLastSixtySeconds,
@@ -75,6 +62,30 @@ public class RealTimeMetrics {
                           long setDataPdusInLastSixtySeconds,
                           long designatorPdusInLastSixtySeconds,
                           long electromagneticEmissionsPdusInLastSixtySeconds) {
+        this(lastPduReceivedTimestampMs, pdusInLastSixtySeconds, averagePduRatePerSecondLastSixtySeconds,
+                entityStatePdusInLastSixtySeconds, fireEventPdusInLastSixtySeconds, collisionPdusInLastSixtySeconds,
+                detonationPdusInLastSixtySeconds, dataPdusInLastSixtySeconds, actionRequestPdusInLastSixtySeconds,
+                startResumePdusInLastSixtySeconds, setDataPdusInLastSixtySeconds, designatorPdusInLastSixtySeconds,
+                electromagneticEmissionsPdusInLastSixtySeconds, 0, 0, Map.of(), Map.of());
+    }
+
+    // Full constructor; the maps are copied, so later changes to the arguments do not show through
+    public RealTimeMetrics(long lastPduReceivedTimestampMs, long pdusInLastSixtySeconds,
+                          double averagePduRatePerSecondLastSixtySeconds,
+                          long entityStatePdusInLastSixtySeconds,
+                          long fireEventPdusInLastSixtySeconds,
+                          long collisionPdusInLastSixtySeconds,
+                          long detonationPdusInLastSixtySeconds,
+                          long dataPdusInLastSixtySeconds,
+                          long actionRequestPdusInLastSixtySeconds,
+                          long startResumePdusInLastSixtySeconds,
+                          long setDataPdusInLastSixtySeconds,
+                          long designatorPdusInLastSixtySeconds,
+                          long electromagneticEmissionsPdusInLastSixtySeconds,
+                          long activeEntitiesLastMinute,
+                          long activeEntitiesLastFiveMinutes,
+                          Map<Integer, ActiveEntityMetrics> activeEntitiesByExercise,
+                          Map<Integer, ActiveEntityMetrics> activeEntitiesByPduType) {
         this.lastPduReceivedTimestampMs = lastPduReceivedTimestampMs;
         this.pdusInLastSixtySeconds = pdusInLastSixtySeconds;
         this.averagePduRatePerSecondLastSixtySeconds = averagePduRatePerSecondLastSixtySeconds;
@@ -88,5 +99,9 @@ public class RealTimeMetrics {
         this.setDataPdusInLastSixtySeconds = setDataPdusInLastSixtySeconds;
         this.designatorPdusInLastSixtySeconds = designatorPdusInLastSixtySeconds;
         this.electromagneticEmissionsPdusInLastSixtySeconds = electromagneticEmissionsPdusInLastSixtySeconds;
+        this.activeEntitiesLastMinute = activeEntitiesLastMinute;
+        this.activeEntitiesLastFiveMinutes = activeEntitiesLastFiveMinutes;
+        this.activeEntitiesByExercise = Collections.unmodifiableMap(new TreeMap<>(activeEntitiesByExercise));
+        this.activeEntitiesByPduType = Collections.unmodifiableMap(new TreeMap<>(activeEntitiesByPduType));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpillJournalMetrics {
+    private String directory;
+    private int segments;          // Segment files currently on disk
+    private long journalBytes;     // Mapped size of those segments
+    private long pendingRecords;   // Spilled records not yet replayed to Kafka
+    private long appendedRecords;  // Records spilled since start
+    private long replayedRecords;  // Records replayed and acknowledged since start
+    private long readSegment;      // Replay position: segment id ...
+    private int readOffset;        // ... and offset of the next record to replay
+    private long writeSegment;     // Append position: segment id ...
+    private int writeOffset;       // ... and offset of the next record to write
+}
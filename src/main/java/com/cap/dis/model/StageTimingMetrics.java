@@ -0,0 +1,20 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StageTimingMetrics {
+    private String stage;                // socket-wait, unmarshal, dispatch, serialize or kafka-enqueue
+    private long samples;                // Timed calls since start (1 in dis.metrics.stage-sample-rate)
+    private double sampledMillis;        // Total time of the timed calls
+    private double estimatedTotalMillis; // sampledMillis scaled up by the sample rate
+    private double shareOfTotal;         // Fraction of the estimated time of all stages, 0..1
+    private double meanMicros;
+    private long p50Micros;
+    private long p99Micros;
+    private long maxMicros;
+}
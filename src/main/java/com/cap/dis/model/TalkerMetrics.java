@@ -0,0 +1,16 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TalkerMetrics {
+    private String talker;          // Exercise ID, "site:application", source address or "site:application:entity"
+    private long pdus;              // Estimated PDUs in the window (never an undercount)
+    private long maxOvercount;      // How much of pdus may be overcount from the sketches
+    private double ratePerSecond;   // pdus over the window length
+    private double shareOfTotal;    // pdus / all PDUs in the window, 0..1
+}
@@ -0,0 +1,21 @@
+package com.cap.dis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopTalkersMetrics {
+    private long windowStartMs;                 // Start of the window the counts cover
+    private long windowMillis;                  // Its length (time so far while no window has completed yet)
+    private boolean complete;                   // false until the first window has closed
+    private long totalPdus;                     // PDUs received in the window
+    private List<TalkerMetrics> exercises;
+    private List<TalkerMetrics> siteApplications;
+    private List<TalkerMetrics> sourceAddresses;
+    private List<TalkerMetrics> entities;
+}
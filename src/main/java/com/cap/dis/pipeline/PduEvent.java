@@ -0,0 +1,123 @@
+package com.cap.dis.pipeline;
+
+import edu.nps.moves.dis.Pdu;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * One preallocated slot of a {@link PduPipeline} ring. The receive stage writes the datagram into
+ * {@link #buffer}; every later stage reads what the previous one left behind. Slots are reused, so
+ * nothing in here may be retained once the publish stage is done with it.
+ */
+public class PduEvent {
+
+    private final ByteBuffer buffer;
+    private Pdu pdu;
+    private boolean flyweight;
+    private String json;
+    private byte[] payload;
+    private SocketAddress source;
+    private long receivedAt;
+    private long receivedNanos;
+    private String topic;
+    private String key;
+
+    PduEvent(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /** Receive buffer of this slot; position..limit is the datagram once the receive stage published it. */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public Pdu getPdu() {
+        return pdu;
+    }
+
+    public void setPdu(Pdu pdu) {
+        this.pdu = pdu;
+    }
+
+    /** True when the PDU is serialized straight from {@link #buffer} instead of an unmarshalled {@link Pdu}. */
+    public boolean isFlyweight() {
+        return flyweight;
+    }
+
+    public void setFlyweight(boolean flyweight) {
+        this.flyweight = flyweight;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public void setJson(String json) {
+        this.json = json;
+    }
+
+    /** Encoded record value in json-bytes output mode; takes precedence over {@link #json} when set. */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    /** Sender of the datagram, set by the receive stage. */
+    public SocketAddress getSource() {
+        return source;
+    }
+
+    public void setSource(SocketAddress source) {
+        this.source = source;
+    }
+
+    /** Wall-clock receive time in epoch millis, set by the receive stage. */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(long receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    /** {@link System#nanoTime()} at receive, for the receive-to-acknowledgement latency. */
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    public void setReceivedNanos(long receivedNanos) {
+        this.receivedNanos = receivedNanos;
+    }
+
+    /** Destination topic, or null for the default kafka.topic. */
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    /** Kafka record key, or null for an unkeyed record. */
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    void reset() {
+        pdu = null;
+        flyweight = false;
+        json = null;
+        payload = null;
+        source = null;
+        topic = null;
+        key = null;
+    }
+}
@@ -0,0 +1,212 @@
+package com.cap.dis.pipeline;
+
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.model.PipelineStageMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+
+/**
+ * Receive -> decode -> serialize -> publish pipeline for one UDP receiver.
+ *
+ * <p>All stages share a single preallocated ring of {@link PduEvent} slots. Each stage worker owns a
+ * sequence cursor and may only work on slots its upstream stage has already completed, so every
+ * pair of adjacent stages is joined by a bounded, lock-free segment of the ring and no slot is
+ * ever allocated or copied after start-up. The receive side (the caller of {@link #claim()} /
+ * {@link #publish()}) must be a single thread.
+ *
+ * <p>Decode and serialize can run as several workers. Every worker of such a stage walks the whole
+ * ring but only processes the slots whose shard (derived from the supplied shard key, normally the
+ * packed EntityID) is its own, so all PDUs of one entity are handled by the same worker. The key
+ * function is evaluated concurrently by all workers and must only use absolute reads of the slot
+ * buffer. The publish stage is a single thread that releases slots in ring order, so per-entity
+ * ordering survives the fan-out.
+ */
+public class PduPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(PduPipeline.class);
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+    private static final String[] STAGE_NAMES = {"receive", "decode", "serialize", "publish"};
+
+    private final String name;
+    private final PduEvent[] slots;
+    private final int mask;
+    private final int workers;
+    private final ToLongFunction<PduEvent> shardKey;
+    // cursors[stage][worker]; stage 0 is the receive stage (single cursor, last published slot)
+    private final AtomicLong[][] cursors;
+    private final AtomicLong[] stalls;
+    private final PipelineStage[] stages = new PipelineStage[STAGE_NAMES.length];
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private long nextSequence; // receive thread only
+
+    public PduPipeline(String name, int ringSize, int slotSize, boolean directBuffers) {
+        this(name, ringSize, slotSize, directBuffers, 1, event -> PduBytes.NO_ENTITY);
+    }
+
+    public PduPipeline(String name, int ringSize, int slotSize, boolean directBuffers,
+                       int workers, ToLongFunction<PduEvent> shardKey) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + ringSize);
+        }
+        // Every slot is carved from one ByteBuffer, which cannot exceed Integer.MAX_VALUE bytes
+        long blockSize = (long) ringSize * slotSize;
+        if (slotSize < 1 || blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring of " + ringSize + " slots of " + slotSize
+                    + " bytes does not fit one buffer (" + blockSize + " bytes, at most " + Integer.MAX_VALUE + ")");
+        }
+        this.name = name;
+        this.slots = new PduEvent[ringSize];
+        this.mask = ringSize - 1;
+        this.workers = Math.max(1, workers);
+        this.shardKey = shardKey;
+        // One contiguous block carved into per-slot views keeps the receive buffers off-heap in channel mode
+        ByteBuffer block = directBuffers
+                ? ByteBuffer.allocateDirect((int) blockSize)
+                : ByteBuffer.allocate((int) blockSize);
+        for (int i = 0; i < ringSize; i++) {
+            block.limit((i + 1) * slotSize).position(i * slotSize);
+            slots[i] = new PduEvent(block.slice());
+        }
+        this.cursors = new AtomicLong[STAGE_NAMES.length][];
+        this.stalls = new AtomicLong[STAGE_NAMES.length];
+        for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+            cursors[stage] = new AtomicLong[isSharded(stage) ? this.workers : 1];
+            for (int w = 0; w < cursors[stage].length; w++) {
+                cursors[stage][w] = new AtomicLong(-1);
+            }
+            stalls[stage] = new AtomicLong();
+        }
+    }
+
+    private static boolean isSharded(int stage) {
+        return stage == 1 || stage == 2;
+    }
+
+    public void start(PipelineStage decode, PipelineStage serialize, PipelineStage publish) {
+        stages[1] = decode;
+        stages[2] = serialize;
+        stages[3] = publish;
+        running = true;
+        for (int stage = 1; stage < STAGE_NAMES.length; stage++) {
+            for (int worker = 0; worker < cursors[stage].length; worker++) {
+                int s = stage;
+                int w = worker;
+                String threadName = name + "-" + STAGE_NAMES[stage] + (isSharded(stage) ? "-" + worker : "");
+                Thread thread = new Thread(() -> runStage(s, w), threadName);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        log.info("PDU pipeline {} started with {} slots and {} decode workers", name, slots.length, workers);
+    }
+
+    public void stop() {
+        running = false;
+        threads.forEach(LockSupport::unpark);
+    }
+
+    /**
+     * Returns the next free slot with its buffer cleared for writing, waiting while the ring is full.
+     * Receive thread only; the slot is handed downstream by {@link #publish()}.
+     */
+    public PduEvent claim() {
+        AtomicLong[] drained = cursors[STAGE_NAMES.length - 1];
+        long wrapPoint = nextSequence - slots.length;
+        if (minimum(drained) < wrapPoint) {
+            stalls[0].incrementAndGet();
+            int tries = 0;
+            while (minimum(drained) < wrapPoint) {
+                tries = idle(tries);
+            }
+        }
+        PduEvent event = slots[(int) nextSequence & mask];
+        event.getBuffer().clear();
+        return event;
+    }
+
+    public void publish() {
+        cursors[0][0].lazySet(nextSequence++);
+    }
+
+    private void runStage(int stage, int worker) {
+        AtomicLong[] upstream = cursors[stage - 1];
+        AtomicLong own = cursors[stage][worker];
+        PipelineStage handler = stages[stage];
+        boolean sharded = isSharded(stage) && workers > 1;
+        boolean last = stage == STAGE_NAMES.length - 1;
+        int tries = 0;
+        while (running) {
+            long next = own.get() + 1;
+            long available = minimum(upstream);
+            if (available < next) {
+                if (tries == 0) {
+                    stalls[stage].incrementAndGet();
+                }
+                tries = idle(tries);
+                continue;
+            }
+            tries = 0;
+            // Work through everything the upstream stage has completed, then release it in one go
+            for (long sequence = next; sequence <= available; sequence++) {
+                PduEvent event = slots[(int) sequence & mask];
+                if (sharded && PduBytes.shardOf(shardKey.applyAsLong(event), workers) != worker) {
+                    continue;
+                }
+                try {
+                    handler.process(event);
+                } catch (Exception e) {
+                    log.error("Pipeline {} stage {} failed to process slot {}", name, STAGE_NAMES[stage], sequence, e);
+                }
+                if (last) {
+                    event.reset();
+                }
+            }
+            own.lazySet(available);
+        }
+    }
+
+    private static long minimum(AtomicLong[] sequences) {
+        long min = sequences[0].get();
+        for (int i = 1; i < sequences.length; i++) {
+            min = Math.min(min, sequences[i].get());
+        }
+        return min;
+    }
+
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return tries + 1;
+    }
+
+    public List<PipelineStageMetrics> getStageMetrics() {
+        List<PipelineStageMetrics> metrics = new ArrayList<>(STAGE_NAMES.length);
+        long published = cursors[0][0].get();
+        long drained = minimum(cursors[STAGE_NAMES.length - 1]);
+        metrics.add(new PipelineStageMetrics(name, STAGE_NAMES[0], published - drained, slots.length,
+                published + 1, stalls[0].get()));
+        for (int stage = 1; stage < STAGE_NAMES.length; stage++) {
+            long done = minimum(cursors[stage]);
+            metrics.add(new PipelineStageMetrics(name, STAGE_NAMES[stage], minimum(cursors[stage - 1]) - done,
+                    slots.length, done + 1, stalls[stage].get()));
+        }
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,9 @@
+package com.cap.dis.pipeline;
+
+/**
+ * Work done by one consumer stage of a {@link PduPipeline} for a single slot.
+ */
+@FunctionalInterface
+public interface PipelineStage {
+    void process(PduEvent event) throws Exception;
+}
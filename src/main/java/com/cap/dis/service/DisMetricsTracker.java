@@ -1,10 +1,43 @@
 package com.cap.dis.service;
 
+import com.cap.dis.codec.EntityStateFlyweight;
+import com.cap.dis.codec.PduTypeNames;
+import com.cap.dis.journal.SpillJournal;
+import com.cap.dis.metrics.LatencyHistogram;
+import com.cap.dis.metrics.RateMeter;
+import com.cap.dis.metrics.RollingHyperLogLog;
+import com.cap.dis.metrics.TimedStage;
+import com.cap.dis.metrics.TopTalkers;
+import com.cap.dis.model.ActiveEntityMetrics;
+import com.cap.dis.model.DeadReckoningMetrics;
+import com.cap.dis.model.LatencyMetrics;
+import com.cap.dis.model.PduLatencies;
+import com.cap.dis.model.PduRates;
+import com.cap.dis.model.PduTypeMetrics;
+import com.cap.dis.model.PipelineStageMetrics;
+import com.cap.dis.model.RateMetrics;
 import com.cap.dis.model.RealTimeMetrics;
+import com.cap.dis.model.SpillJournalMetrics;
+import com.cap.dis.model.StageTimingMetrics;
+import com.cap.dis.model.TopTalkersMetrics;
+import com.cap.dis.pipeline.PduPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,150 +45,482 @@ import org.slf4j.LoggerFactory;
 public class DisMetricsTracker {
 
     private static final Logger log = LoggerFactory.getLogger(DisMetricsTracker.class);
-    private static final long ONE_MINUTE_MS = 60 * 1000;
+    private static final long RATE_TICK_MS = 5000;
+    public static final long NOT_SAMPLED = 0;
+    // Distinct entities in 10 s buckets: the current bucket and the 6 before cover at least the last
+    // minute, all 31 at least the last 5 minutes
+    private static final long ENTITY_BUCKET_MS = 10_000;
+    private static final int ENTITY_BUCKETS = 31;
+    private static final int ENTITY_MINUTE_BUCKETS = 7;
+    private static final int ENTITY_PRECISION = 10;
 
-    // Stores timestamps of all PDUs received in the last minute
-    private final ConcurrentLinkedDeque<Long> pduReceiveTimestamps = new ConcurrentLinkedDeque<>();
+    // All PDUs received: count since start, sliding windows from 1 s to 15 min and EWMAs
+    private final RateMeter pdusReceived = new RateMeter();
     private final AtomicLong lastPduReceivedTimestampMsAtomic = new AtomicLong(0);
-    
-    // Stores timestamps for specific PDU types
-    private final ConcurrentLinkedDeque<Long> entityStatePduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> fireEventPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> collisionPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> detonationPduTimestamps = new ConcurrentLinkedDeque<>();
-    
-    // Stores timestamps for new PDU types
-    private final ConcurrentLinkedDeque<Long> dataPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> actionRequestPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> startResumePduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> setDataPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> designatorPduTimestamps = new ConcurrentLinkedDeque<>();
-    private final ConcurrentLinkedDeque<Long> electromagneticEmissionsPduTimestamps = new ConcurrentLinkedDeque<>();
+
+    // The same per PDU type, indexed by the type byte of the header. Meters are created on the first
+    // PDU of a type, so unused types cost one null slot.
+    private final AtomicReferenceArray<RateMeter> pduTypeMeters = new AtomicReferenceArray<>(256);
+
+    // Receive-to-Kafka-acknowledgement latency, for all PDUs and per PDU type (created on first use)
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicReferenceArray<LatencyHistogram> pduTypeLatencies = new AtomicReferenceArray<>(256);
+
+    // Time spent per receive-path stage, indexed by TimedStage ordinal. Only 1 in stageSampleRate
+    // calls of a stage is timed (0 = off), so the clock reads stay off most packets.
+    private final LatencyHistogram[] stageTimes = new LatencyHistogram[TimedStage.values().length];
+    private int stageSampleRate;
+
+    // Distinct primary EntityIDs (created on first sight). Overall and per exercise only Entity States
+    // count, so munitions and event IDs from Fire, Detonation or Designator PDUs are not taken for live
+    // entities; the per-type sketches count the primary entity of every type.
+    private final RollingHyperLogLog activeEntities = newEntitySketch();
+    private final AtomicReferenceArray<RollingHyperLogLog> exerciseEntities = new AtomicReferenceArray<>(256);
+    private final AtomicReferenceArray<RollingHyperLogLog> pduTypeEntities = new AtomicReferenceArray<>(256);
+
+    // Last snapshot of publishSnapshot(); readers get it without touching the counters
+    private volatile RealTimeMetrics latestSnapshot;
+    // Called with every published snapshot on the publishing (scheduler) thread; they must not block
+    private final List<Consumer<RealTimeMetrics>> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    // Kafka acknowledgements and failures, counted in the producer's completion callbacks
+    private final LongAdder kafkaSendsSucceeded = new LongAdder();
+    private final LongAdder kafkaSendsFailed = new LongAdder();
+
+    // Heaviest senders per exercise, site/application, source address and entity; null when
+    // dis.metrics.top-talkers.capacity is 0 (the default)
+    private volatile TopTalkers topTalkers;
+
+    // Records dropped or conflated by KafkaProducerService under backpressure, per PDU type, since start
+    private final AtomicLongArray shedPdus = new AtomicLongArray(256);
+
+    // Entity State PDUs seen / suppressed by the dead-reckoning filter, since start
+    private final LongAdder deadReckoningEvaluated = new LongAdder();
+    private final LongAdder deadReckoningSuppressed = new LongAdder();
+
+    // Kafka spill journal, when kafka.spill.enabled
+    private volatile SpillJournal spillJournal;
+
+    // Receive pipelines (one per UDP receiver) whose stage occupancy is reported alongside the PDU counts
+    private final List<PduPipeline> pipelines = new CopyOnWriteArrayList<>();
+
+    public DisMetricsTracker() {
+        for (int i = 0; i < stageTimes.length; i++) {
+            stageTimes[i] = new LatencyHistogram();
+        }
+    }
+
+    @Value("${dis.metrics.stage-sample-rate:0}")
+    public void setStageSampleRate(int stageSampleRate) {
+        this.stageSampleRate = stageSampleRate;
+    }
+
+    @Value("${dis.metrics.top-talkers.capacity:0}")
+    public void setTopTalkerCapacity(int capacity) {
+        topTalkers = capacity > 0 ? new TopTalkers(capacity, System.currentTimeMillis()) : null;
+    }
 
     public void pduReceived() {
+        recordPdu();
+    }
+
+    private long recordPdu() {
         long currentTimeMs = System.currentTimeMillis();
-        lastPduReceivedTimestampMsAtomic.set(currentTimeMs);
-        pduReceiveTimestamps.addLast(currentTimeMs);
+        // Several receiver threads report here; only write the shared timestamp when it actually
+        // moves forward (at most once per millisecond) instead of bouncing its cache line per PDU
+        if (lastPduReceivedTimestampMsAtomic.get() < currentTimeMs) {
+            lastPduReceivedTimestampMsAtomic.set(currentTimeMs);
+        }
+        pdusReceived.mark(currentTimeMs);
+        return currentTimeMs;
+    }
 
-        // Prune old timestamps (optional here, can also be done in getMetrics)
-        // For very high rates, pruning here might be better.
-        // For simplicity, we'll prune in getMetrics to ensure window is accurate at query time.
+    /** Counts one PDU of the given header type, in total and for the type. */
+    public void pduTypeReceived(int pduType) {
+        int index = pduType & 0xFF;
+        long currentTimeMs = recordPdu();
+        RateMeter meter = pduTypeMeters.get(index);
+        if (meter == null) {
+            pduTypeMeters.compareAndSet(index, null, new RateMeter());
+            meter = pduTypeMeters.get(index);
+        }
+        meter.mark(currentTimeMs);
     }
-    
+
     public void entityStatePduReceived() {
-        pduReceived(); // Update general PDU metrics
-        entityStatePduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(1);
     }
-    
+
     public void fireEventPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        fireEventPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(2);
     }
-    
+
     public void collisionPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        collisionPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(4);
     }
-    
+
     public void detonationPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        detonationPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(3);
     }
-    
+
     public void dataPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        dataPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(20);
     }
-    
+
     public void actionRequestPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        actionRequestPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(16);
     }
-    
+
     public void startResumePduReceived() {
-        pduReceived(); // Update general PDU metrics
-        startResumePduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(13);
     }
-    
+
     public void setDataPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        setDataPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(19);
     }
-    
+
     public void designatorPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        designatorPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(24);
     }
-    
+
     public void electromagneticEmissionsPduReceived() {
-        pduReceived(); // Update general PDU metrics
-        electromagneticEmissionsPduTimestamps.addLast(System.currentTimeMillis());
+        pduTypeReceived(23);
     }
 
+    /** Counts the primary entity of a PDU towards the active entity estimates (overall ones for Entity States only). */
+    public void entitySeen(int exerciseId, int pduType, long entityId) {
+        long currentTimeMs = System.currentTimeMillis();
+        // The same EntityID in two exercises is two entities
+        long hash = RollingHyperLogLog.hash((long) (exerciseId & 0xFF) << 48 | entityId);
+        if (pduType == EntityStateFlyweight.PDU_TYPE) {
+            activeEntities.addHash(currentTimeMs, hash);
+            entitySketch(exerciseEntities, exerciseId & 0xFF).addHash(currentTimeMs, hash);
+        }
+        entitySketch(pduTypeEntities, pduType & 0xFF).addHash(currentTimeMs, hash);
+    }
+
+    private static RollingHyperLogLog entitySketch(AtomicReferenceArray<RollingHyperLogLog> sketches, int index) {
+        RollingHyperLogLog sketch = sketches.get(index);
+        if (sketch == null) {
+            sketches.compareAndSet(index, null, newEntitySketch());
+            sketch = sketches.get(index);
+        }
+        return sketch;
+    }
+
+    private static RollingHyperLogLog newEntitySketch() {
+        return new RollingHyperLogLog(ENTITY_BUCKETS, ENTITY_BUCKET_MS, ENTITY_PRECISION);
+    }
+
+    private static ActiveEntityMetrics activeEntities(RollingHyperLogLog sketch, long currentTimeMs) {
+        return new ActiveEntityMetrics(sketch.estimate(currentTimeMs, ENTITY_MINUTE_BUCKETS),
+                sketch.estimate(currentTimeMs, ENTITY_BUCKETS));
+    }
+
+    // Estimates per exercise or PDU type, only listing those with entities in the last 5 minutes
+    private static Map<Integer, ActiveEntityMetrics> activeEntities(AtomicReferenceArray<RollingHyperLogLog> sketches,
+                                                                    long currentTimeMs) {
+        Map<Integer, ActiveEntityMetrics> metrics = new TreeMap<>();
+        for (int index = 0; index < sketches.length(); index++) {
+            RollingHyperLogLog sketch = sketches.get(index);
+            if (sketch != null) {
+                ActiveEntityMetrics active = activeEntities(sketch, currentTimeMs);
+                if (active.getLastFiveMinutes() > 0) {
+                    metrics.put(index, active);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    private long pduTypeCount(int pduType, long currentTimeMs) {
+        RateMeter meter = pduTypeMeters.get(pduType);
+        return meter == null ? 0 : meter.lastMinuteCount(currentTimeMs);
+    }
+
+    /** Rate meter of one PDU type (negative: all PDUs), or null when none of that type arrived yet. */
+    public RateMeter getRateMeter(int pduType) {
+        return pduType < 0 ? pdusReceived : pduTypeMeters.get(pduType & 0xFF);
+    }
+
+    /** Counts per PDU type (key: the type byte), only listing types received since start. */
+    public Map<Integer, PduTypeMetrics> getPduTypeMetrics() {
+        long currentTimeMs = System.currentTimeMillis();
+        Map<Integer, PduTypeMetrics> metrics = new TreeMap<>();
+        for (int pduType = 0; pduType < pduTypeMeters.length(); pduType++) {
+            RateMeter meter = pduTypeMeters.get(pduType);
+            if (meter != null) {
+                metrics.put(pduType, new PduTypeMetrics(PduTypeNames.name(pduType),
+                        meter.lastMinuteCount(currentTimeMs), meter.getCount()));
+            }
+        }
+        return metrics;
+    }
+
+    // Advances the EWMAs of all meters; the scheduler is the only thread that ticks
+    @Scheduled(fixedRate = RATE_TICK_MS)
+    public void tickRates() {
+        long currentTimeMs = System.currentTimeMillis();
+        pdusReceived.tick(currentTimeMs);
+        for (int pduType = 0; pduType < pduTypeMeters.length(); pduType++) {
+            RateMeter meter = pduTypeMeters.get(pduType);
+            if (meter != null) {
+                meter.tick(currentTimeMs);
+            }
+        }
+    }
+
+    /** Rates over 1 s to 15 min windows and EWMAs, for all PDUs and per PDU type. */
+    public PduRates getRates() {
+        long currentTimeMs = System.currentTimeMillis();
+        Map<Integer, RateMetrics> pduTypes = new TreeMap<>();
+        for (int pduType = 0; pduType < pduTypeMeters.length(); pduType++) {
+            RateMeter meter = pduTypeMeters.get(pduType);
+            if (meter != null) {
+                pduTypes.put(pduType, meter.snapshot(PduTypeNames.name(pduType), currentTimeMs));
+            }
+        }
+        return new PduRates(pdusReceived.snapshot("All PDUs", currentTimeMs), pduTypes);
+    }
+
+    /** Computes a fresh snapshot and makes it the one {@link #getLatestSnapshot()} returns. */
+    @Scheduled(fixedRateString = "${dis.metrics.snapshot-interval-ms:1000}")
+    public void publishSnapshot() {
+        RealTimeMetrics snapshot = getMetrics();
+        latestSnapshot = snapshot;
+        for (Consumer<RealTimeMetrics> listener : snapshotListeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                log.warn("Snapshot listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Hands every snapshot from {@link #publishSnapshot()} to {@code listener}, which must return quickly. */
+    public void registerSnapshotListener(Consumer<RealTimeMetrics> listener) {
+        snapshotListeners.add(listener);
+    }
+
+    /**
+     * The snapshot of the last {@link #publishSnapshot()}, at most dis.metrics.snapshot-interval-ms old.
+     * Every reader gets the same instance, which is immutable.
+     */
+    public RealTimeMetrics getLatestSnapshot() {
+        RealTimeMetrics snapshot = latestSnapshot;
+        if (snapshot == null) {
+            // Only before the first scheduled publication
+            snapshot = getMetrics();
+            latestSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /** Computes the metrics from the counters and sketches; prefer {@link #getLatestSnapshot()} for reads. */
     public RealTimeMetrics getMetrics() {
         long currentTimeMs = System.currentTimeMillis();
-        long sixtySecondsAgo = currentTimeMs - ONE_MINUTE_MS;
-
-        // Prune timestamps older than 60 seconds for all PDU types
-        // Iterating from the oldest (head)
-        pruneTimestamps(pduReceiveTimestamps, sixtySecondsAgo);
-        pruneTimestamps(entityStatePduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(fireEventPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(collisionPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(detonationPduTimestamps, sixtySecondsAgo);
-        
-        // Prune timestamps for new PDU types
-        pruneTimestamps(dataPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(actionRequestPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(startResumePduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(setDataPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(designatorPduTimestamps, sixtySecondsAgo);
-        pruneTimestamps(electromagneticEmissionsPduTimestamps, sixtySecondsAgo);
-
-        long currentPdusInLastSixtySeconds = pduReceiveTimestamps.size();
-        long entityStatePdusInLastSixtySeconds = entityStatePduTimestamps.size();
-        long fireEventPdusInLastSixtySeconds = fireEventPduTimestamps.size();
-        long collisionPdusInLastSixtySeconds = collisionPduTimestamps.size();
-        long detonationPdusInLastSixtySeconds = detonationPduTimestamps.size();
-        
-        // Count new PDU types
-        long dataPdusInLastSixtySeconds = dataPduTimestamps.size();
-        long actionRequestPdusInLastSixtySeconds = actionRequestPduTimestamps.size();
-        long startResumePdusInLastSixtySeconds = startResumePduTimestamps.size();
-        long setDataPdusInLastSixtySeconds = setDataPduTimestamps.size();
-        long designatorPdusInLastSixtySeconds = designatorPduTimestamps.size();
-        long electromagneticEmissionsPdusInLastSixtySeconds = electromagneticEmissionsPduTimestamps.size();
-        
+
+        // Sums of the one-second buckets of the last minute; nothing to prune
+        long currentPdusInLastSixtySeconds = pdusReceived.lastMinuteCount(currentTimeMs);
         double rate = (double) currentPdusInLastSixtySeconds / 60.0;
         long lastTimestamp = lastPduReceivedTimestampMsAtomic.get();
 
         if (lastTimestamp == 0 && currentPdusInLastSixtySeconds == 0) {
             lastTimestamp = currentTimeMs; // Avoid returning 0 if no PDUs yet
         }
-        
+
         log.debug("Current metrics: Last PDU at {}, Count in last 60s: {}, Rate: {}/s",
                 lastTimestamp, currentPdusInLastSixtySeconds, String.format("%.2f", rate));
 
+        ActiveEntityMetrics active = activeEntities(activeEntities, currentTimeMs);
         return new RealTimeMetrics(
-            lastTimestamp, 
-            currentPdusInLastSixtySeconds, 
+            lastTimestamp,
+            currentPdusInLastSixtySeconds,
             rate,
-            entityStatePdusInLastSixtySeconds,
-            fireEventPdusInLastSixtySeconds,
-            collisionPdusInLastSixtySeconds,
-            detonationPdusInLastSixtySeconds,
-            dataPdusInLastSixtySeconds,
-            actionRequestPdusInLastSixtySeconds,
-            startResumePdusInLastSixtySeconds,
-            setDataPdusInLastSixtySeconds,
-            designatorPdusInLastSixtySeconds,
-            electromagneticEmissionsPdusInLastSixtySeconds
+            pduTypeCount(1, currentTimeMs),
+            pduTypeCount(2, currentTimeMs),
+            pduTypeCount(4, currentTimeMs),
+            pduTypeCount(3, currentTimeMs),
+            pduTypeCount(20, currentTimeMs),
+            pduTypeCount(16, currentTimeMs),
+            pduTypeCount(13, currentTimeMs),
+            pduTypeCount(19, currentTimeMs),
+            pduTypeCount(24, currentTimeMs),
+            pduTypeCount(23, currentTimeMs),
+            active.getLastMinute(),
+            active.getLastFiveMinutes(),
+            activeEntities(exerciseEntities, currentTimeMs),
+            activeEntities(pduTypeEntities, currentTimeMs)
         );
     }
-    
-    private void pruneTimestamps(ConcurrentLinkedDeque<Long> timestamps, long cutoffTime) {
-        while (timestamps.peekFirst() != null && timestamps.peekFirst() < cutoffTime) {
-            timestamps.pollFirst();
+
+    /** Records how long a record of the given PDU type (negative when unknown) took from receive to ack. */
+    public void recordLatency(int pduType, long nanos) {
+        latency.record(nanos);
+        if (pduType < 0) {
+            return;
+        }
+        int index = pduType & 0xFF;
+        LatencyHistogram histogram = pduTypeLatencies.get(index);
+        if (histogram == null) {
+            pduTypeLatencies.compareAndSet(index, null, new LatencyHistogram());
+            histogram = pduTypeLatencies.get(index);
+        }
+        histogram.record(nanos);
+    }
+
+    /** Receive-to-ack histogram of one PDU type (negative: all PDUs), or null when none was acknowledged yet. */
+    public LatencyHistogram getLatencyHistogram(int pduType) {
+        return pduType < 0 ? latency : pduTypeLatencies.get(pduType & 0xFF);
+    }
+
+    /** Latency percentiles since start, for all PDUs and per PDU type. */
+    public PduLatencies getLatencies() {
+        Map<Integer, LatencyMetrics> pduTypes = new TreeMap<>();
+        for (int pduType = 0; pduType < pduTypeLatencies.length(); pduType++) {
+            LatencyHistogram histogram = pduTypeLatencies.get(pduType);
+            if (histogram != null) {
+                pduTypes.put(pduType, histogram.snapshot(PduTypeNames.name(pduType)));
+            }
+        }
+        return new PduLatencies(latency.snapshot("All PDUs"), pduTypes);
+    }
+
+    /**
+     * Start of a stage: {@link System#nanoTime()} when this call is sampled, else {@link #NOT_SAMPLED}.
+     * Sampling is random per call (ThreadLocalRandom), so threads share no counter.
+     */
+    public long stageStart() {
+        int rate = stageSampleRate;
+        if (rate <= 0 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0)) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    /** End of a stage started with {@link #stageStart()}; unsampled starts are ignored. */
+    public void stageEnd(TimedStage stage, long start) {
+        if (start != NOT_SAMPLED) {
+            stageTimes[stage.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    public LatencyHistogram getStageHistogram(TimedStage stage) {
+        return stageTimes[stage.ordinal()];
+    }
+
+    public int getStageSampleRate() {
+        return stageSampleRate;
+    }
+
+    /** Sampled time per stage, in receive-path order, with each stage's share of the estimated total. */
+    public List<StageTimingMetrics> getStageTimings() {
+        double scale = Math.max(1, stageSampleRate);
+        double allStagesNanos = 0;
+        for (LatencyHistogram histogram : stageTimes) {
+            allStagesNanos += histogram.getSum();
+        }
+        List<StageTimingMetrics> timings = new ArrayList<>(stageTimes.length);
+        for (TimedStage stage : TimedStage.values()) {
+            LatencyHistogram histogram = stageTimes[stage.ordinal()];
+            LatencyMetrics latency = histogram.snapshot(stage.getLabel());
+            double sampledMillis = histogram.getSum() / 1e6;
+            timings.add(new StageTimingMetrics(stage.getLabel(), latency.getCount(), sampledMillis, sampledMillis * scale,
+                    allStagesNanos == 0 ? 0.0 : histogram.getSum() / allStagesNanos,
+                    latency.getMeanMicros(), latency.getP50Micros(), latency.getP99Micros(), latency.getMaxMicros()));
+        }
+        return timings;
+    }
+
+    /** Counts a datagram (PDU at {@code start}) towards the top talkers; {@code source} may be null. */
+    public void talkerReceived(ByteBuffer buffer, int start, InetAddress source) {
+        TopTalkers talkers = topTalkers;
+        if (talkers != null) {
+            talkers.record(buffer, start, source);
+        }
+    }
+
+    // Tumbling windows; the first one closes a full window after startup
+    @Scheduled(fixedRateString = "${dis.metrics.top-talkers.window-ms:60000}",
+            initialDelayString = "${dis.metrics.top-talkers.window-ms:60000}")
+    public void rotateTopTalkers() {
+        TopTalkers talkers = topTalkers;
+        if (talkers != null) {
+            talkers.rotate(System.currentTimeMillis());
+        }
+    }
+
+    /** The {@code limit} heaviest talkers of each breakdown, or null when top talkers are disabled. */
+    public TopTalkersMetrics getTopTalkers(int limit) {
+        TopTalkers talkers = topTalkers;
+        return talkers == null ? null : talkers.snapshot(limit, System.currentTimeMillis());
+    }
+
+    public void kafkaSendCompleted(boolean succeeded) {
+        (succeeded ? kafkaSendsSucceeded : kafkaSendsFailed).increment();
+    }
+
+    public long getKafkaSendsSucceeded() {
+        return kafkaSendsSucceeded.sum();
+    }
+
+    public long getKafkaSendsFailed() {
+        return kafkaSendsFailed.sum();
+    }
+
+    public void pduShed(int pduType) {
+        shedPdus.incrementAndGet(pduType & 0xFF);
+    }
+
+    public long getShedCount(int pduType) {
+        return shedPdus.get(pduType & 0xFF);
+    }
+
+    /** Shed records per PDU type, only listing types that had any. */
+    public Map<Integer, Long> getShedCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int pduType = 0; pduType < shedPdus.length(); pduType++) {
+            long shed = shedPdus.get(pduType);
+            if (shed > 0) {
+                counts.put(pduType, shed);
+            }
+        }
+        return counts;
+    }
+
+    public void deadReckoningEvaluated(boolean suppressed) {
+        deadReckoningEvaluated.increment();
+        if (suppressed) {
+            deadReckoningSuppressed.increment();
+        }
+    }
+
+    public DeadReckoningMetrics getDeadReckoningMetrics() {
+        long suppressed = deadReckoningSuppressed.sum();
+        long evaluated = Math.max(deadReckoningEvaluated.sum(), suppressed);
+        double ratio = evaluated == 0 ? 0.0 : (double) suppressed / evaluated;
+        return new DeadReckoningMetrics(evaluated, evaluated - suppressed, suppressed, ratio);
+    }
+
+    public void registerSpillJournal(SpillJournal spillJournal) {
+        this.spillJournal = spillJournal;
+    }
+
+    /** Journal size and replay progress, or null when spilling is disabled. */
+    public SpillJournalMetrics getSpillJournalMetrics() {
+        SpillJournal journal = spillJournal;
+        return journal == null ? null : journal.getMetrics();
+    }
+
+    public void registerPipeline(PduPipeline pipeline) {
+        pipelines.add(pipeline);
+    }
+
+    public List<PipelineStageMetrics> getPipelineMetrics() {
+        List<PipelineStageMetrics> metrics = new ArrayList<>();
+        for (PduPipeline pipeline : pipelines) {
+            metrics.addAll(pipeline.getStageMetrics());
         }
+        return metrics;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,10 @@
 package com.cap.dis.service;
 
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.journal.SpillJournal;
+import com.cap.dis.journal.SpilledRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,28 +13,527 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 public class KafkaProducerService {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaProducerService.class);
+    private static final String ANY_PDU_TYPE = "*";
+    private static final int NO_PDU_TYPE = -1;
+    // receivedNanos of records that have no receive time (error reports, replayed spills); not timed
+    public static final long NOT_TIMED = 0;
 
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+    private final DisMetricsTracker metricsTracker;
 
     @Value("${kafka.topic}")
     private String topic;
 
+    // Routing tables indexed by the header bytes; null entries fall through to the next table and
+    // finally to kafka.topic. Exercise rows are only allocated for exercises that have overrides.
+    private final String[] pduTypeTopics = new String[256];
+    private final String[] familyTopics = new String[256];
+    private final String[][] exerciseTopics = new String[256][];
+
+    // Sends handed to the producer and not yet acknowledged; above kafka.max-in-flight the shedding
+    // policies apply instead of letting send() block on a full producer buffer (max.block.ms) and
+    // stall the UDP receivers. 0 disables the budget.
+    @Value("${kafka.max-in-flight:0}")
+    private int maxInFlight;
+
+    @Value("${kafka.shedding.backlog-size:10000}")
+    private int backlogSize = 10000;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Insertion-ordered; conflatable records are keyed by topic and packed EntityID, everything else by a
+    // sequence number. Both count towards kafka.shedding.backlog-size.
+    private final LinkedHashMap<Object, Pending> backlog = new LinkedHashMap<>();
+    private final AtomicInteger backlogCount = new AtomicInteger();
+    private long backlogSequence; // guarded by backlog
+
+    // Backlog is also drained on this interval, so it empties when no new traffic arrives
+    @Value("${kafka.shedding.drain-interval-ms:50}")
+    private long backlogDrainIntervalMs = 50;
+
+    // Local spill journal for records Kafka did not take (send failures, backlog overflow); replayed
+    // in order once the broker accepts records again
+    @Value("${kafka.spill.enabled:false}")
+    private boolean spillEnabled;
+
+    // Absolute, so the journal does not depend on the working directory the service was started from
+    @Value("${kafka.spill.directory:/var/lib/dis/spill}")
+    private String spillDirectory;
+
+    @Value("${kafka.spill.segment-size:67108864}")
+    private int spillSegmentSize;
+
+    // Records per second replayed from the journal
+    @Value("${kafka.spill.replay-rate:20000}")
+    private int spillReplayRate = 20000;
+
+    @Value("${kafka.spill.replay-interval-ms:200}")
+    private long spillReplayIntervalMs = 200;
+
+    @Value("${kafka.spill.replay-ack-timeout-ms:10000}")
+    private long spillReplayAckTimeoutMs = 10000;
+
+    private SpillJournal spillJournal;
+    // Set by a failed send, cleared by the next acknowledged one (replay probes the broker while live
+    // records go to the journal). Only while it is set do live records bypass Kafka.
+    private volatile boolean brokerFailing;
+    // Set while appends fail (disk full, oversized record), so the condition is logged once
+    private volatile boolean spillFailing;
+    // Replay and the backlog drain run on their own thread rather than Spring's shared scheduler, and
+    // replay never waits for acks: a batch is committed from the callback of its last acknowledgement
+    private ScheduledExecutorService maintenance;
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    // Indexed by PDU type; null = DROP_OLDEST
+    private final SheddingPolicy[] policies = new SheddingPolicy[256];
+
+    // "pduType:policy" entries (never-drop, conflate, drop-oldest); unlisted types are drop-oldest
+    @Value("${kafka.shedding.policies:}")
+    void setSheddingPolicies(String[] entries) {
+        Arrays.fill(policies, null);
+        if (entries == null) {
+            return;
+        }
+        for (String entry : entries) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid shedding policy (pduType:policy): " + entry);
+            }
+            policies[parseHeaderByte(parts[0], entry)] = SheddingPolicy.fromProperty(parts[1]);
+        }
+    }
+
+    // "pduType:topic" entries, e.g. 1:dis-entity-state,2:dis-fire
+    @Value("${kafka.routing.pdu-types:}")
+    void setPduTypeRoutes(String[] routes) {
+        fillRoutes(pduTypeTopics, routes);
+    }
+
+    // "protocolFamily:topic" entries, used for PDU types without their own route
+    @Value("${kafka.routing.families:}")
+    void setFamilyRoutes(String[] routes) {
+        fillRoutes(familyTopics, routes);
+    }
+
+    // "exerciseId:pduType:topic" entries ("*" as pduType for every type); these win over all other routes
+    @Value("${kafka.routing.exercise-overrides:}")
+    void setExerciseOverrides(String[] overrides) {
+        Arrays.fill(exerciseTopics, null);
+        if (overrides == null) {
+            return;
+        }
+        // Wildcards first so a specific type override of the same exercise always wins
+        for (boolean wildcards : new boolean[]{true, false}) {
+            for (String override : overrides) {
+                String[] parts = override.trim().split(":", 3);
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid exercise route (exerciseId:pduType:topic): " + override);
+                }
+                if (ANY_PDU_TYPE.equals(parts[1]) != wildcards) {
+                    continue;
+                }
+                int exerciseId = parseHeaderByte(parts[0], override);
+                String[] row = exerciseTopics[exerciseId];
+                if (row == null) {
+                    row = exerciseTopics[exerciseId] = new String[256];
+                }
+                if (wildcards) {
+                    Arrays.fill(row, parts[2]);
+                } else {
+                    row[parseHeaderByte(parts[1], override)] = parts[2];
+                }
+            }
+        }
+    }
+
+    private static void fillRoutes(String[] table, String[] routes) {
+        Arrays.fill(table, null);
+        if (routes == null) {
+            return;
+        }
+        for (String route : routes) {
+            String[] parts = route.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid route (value:topic): " + route);
+            }
+            table[parseHeaderByte(parts[0], route)] = parts[1];
+        }
+    }
+
+    private static int parseHeaderByte(String value, String route) {
+        int parsed = Integer.parseInt(value.trim());
+        if (parsed < 0 || parsed > 255) {
+            throw new IllegalArgumentException("Header value out of range in route: " + route);
+        }
+        return parsed;
+    }
+
+    /** Destination topic for a PDU, resolved from its header bytes by array lookups only. */
+    public String topicFor(int exerciseId, int pduType, int protocolFamily) {
+        String[] exerciseRow = exerciseTopics[exerciseId];
+        if (exerciseRow != null && exerciseRow[pduType] != null) {
+            return exerciseRow[pduType];
+        }
+        String routed = pduTypeTopics[pduType];
+        if (routed == null) {
+            routed = familyTopics[protocolFamily];
+        }
+        return routed != null ? routed : topic;
+    }
+
     public void sendMessage(String message) {
-        log.info("Sending to Kafka. Topic: {}, Message: {}", topic, message);
-        CompletableFuture<SendResult<String, String>> future = kafkaTemplate.send(topic, message);
+        sendMessage(NO_PDU_TYPE, null, null, message);
+    }
+
+    // Pre-encoded UTF-8 JSON; the payload is not logged so the bytes never turn back into a String
+    public void sendMessage(byte[] message) {
+        sendMessage(NO_PDU_TYPE, null, null, message);
+    }
+
+    /**
+     * Publishes a record for a PDU of the given type (negative when unknown, e.g. error records).
+     * A null topic means kafka.topic; a non-null key pins the record to the partition of that key
+     * (see kafka.key-strategy). While the in-flight budget is used up the record is sent, conflated
+     * or queued according to the type's {@link SheddingPolicy}.
+     */
+    public void sendMessage(int pduType, String topic, String key, String message) {
+        sendMessage(pduType, topic, key, message, NOT_TIMED);
+    }
+
+    public void sendMessage(int pduType, String topic, String key, byte[] message) {
+        sendMessage(pduType, topic, key, message, NOT_TIMED);
+    }
+
+    /**
+     * Same as {@link #sendMessage(int, String, String, String)} for a datagram received at
+     * {@code receivedNanos} ({@link System#nanoTime()}); the time until Kafka acknowledges the record
+     * is recorded as its latency.
+     */
+    public void sendMessage(int pduType, String topic, String key, String message, long receivedNanos) {
+        sendMessage(pduType, PduBytes.NO_ENTITY, topic, key, message, receivedNanos);
+    }
+
+    public void sendMessage(int pduType, String topic, String key, byte[] message, long receivedNanos) {
+        sendMessage(pduType, PduBytes.NO_ENTITY, topic, key, message, receivedNanos);
+    }
+
+    /**
+     * Same as {@link #sendMessage(int, String, String, String, long)} for a PDU whose primary EntityID
+     * ({@link PduBytes#primaryEntityId}) is known. Conflated types are conflated on it, whatever the
+     * record key; records without one are queued like drop-oldest ones.
+     */
+    public void sendMessage(int pduType, long entityId, String topic, String key, String message, long receivedNanos) {
+        submit(new Pending(pduType, entityId, topic != null ? topic : this.topic, key, message, receivedNanos));
+    }
+
+    public void sendMessage(int pduType, long entityId, String topic, String key, byte[] message, long receivedNanos) {
+        submit(new Pending(pduType, entityId, topic != null ? topic : this.topic, key, message, receivedNanos));
+    }
+
+    private void submit(Pending record) {
+        if (maxInFlight > 0) {
+            drainBacklog();
+        }
+        // While the broker fails every send, records go straight to the journal. Once it acknowledges
+        // again, live records are sent directly and the journal drains behind them.
+        if (brokerFailing && spillJournal != null) {
+            spill(record);
+            return;
+        }
+        if (maxInFlight <= 0) {
+            dispatch(record);
+            return;
+        }
+        SheddingPolicy policy = policyFor(record.pduType());
+        // Sheddable records queue behind anything already pending so one entity's updates stay in order.
+        // Never-drop records do not: a Fire or Detonation goes out ahead of queued Entity States, also
+        // those of its own shooter.
+        if (policy == SheddingPolicy.NEVER_DROP || (backlogCount.get() == 0 && inFlight.get() < maxInFlight)) {
+            dispatch(record);
+            return;
+        }
+        Object conflationKey = policy == SheddingPolicy.CONFLATE && record.entityId() != PduBytes.NO_ENTITY
+                ? new ConflationKey(record.topic(), record.entityId())
+                : null;
+        Pending shed = null;
+        boolean overflow = false;
+        synchronized (backlog) {
+            // A newer update of a queued entity takes its place; only new entries grow the backlog
+            Pending replaced = conflationKey != null ? backlog.replace(conflationKey, record) : null;
+            if (replaced != null) {
+                shed = replaced;
+            } else if (backlog.size() >= backlogSize && spillJournal != null) {
+                overflow = true; // the journal takes it instead of evicting anything
+            } else {
+                backlog.put(conflationKey != null ? conflationKey : backlogSequence++, record);
+                if (backlog.size() > backlogSize) {
+                    Iterator<Pending> oldest = backlog.values().iterator();
+                    shed = oldest.next();
+                    oldest.remove();
+                }
+            }
+            backlogCount.set(backlog.size());
+        }
+        if (overflow) {
+            spill(record);
+        }
+        if (shed != null) {
+            metricsTracker.pduShed(shed.pduType());
+        }
+    }
+
+    // Records without a PDU type are error reports: rare, and worth keeping
+    private SheddingPolicy policyFor(int pduType) {
+        if (pduType < 0) {
+            return SheddingPolicy.NEVER_DROP;
+        }
+        SheddingPolicy policy = policies[pduType];
+        return policy != null ? policy : SheddingPolicy.DROP_OLDEST;
+    }
+
+    // Runs on the sending threads as completions free up budget, and on a timer for when traffic stops
+    private void drainBacklog() {
+        while (backlogCount.get() > 0 && inFlight.get() < maxInFlight) {
+            Pending next;
+            synchronized (backlog) {
+                Iterator<Pending> oldest = backlog.values().iterator();
+                if (!oldest.hasNext()) {
+                    return;
+                }
+                next = oldest.next();
+                oldest.remove();
+                backlogCount.set(backlog.size());
+            }
+            dispatch(next);
+        }
+    }
+
+    // Failed sends go to the spill journal when there is one; otherwise they are only logged
+    private void dispatch(Pending record) {
+        CompletableFuture<?> future;
+        try {
+            future = send(record);
+        } catch (RuntimeException e) {
+            if (spillJournal == null) {
+                throw e;
+            }
+            brokerFailing = true;
+            spill(record);
+            return;
+        }
+        if (spillJournal != null) {
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    brokerFailing = true;
+                    spill(record);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<?> send(Pending record) {
+        inFlight.incrementAndGet();
+        CompletableFuture<?> future;
+        try {
+            future = record.value() instanceof byte[] bytes
+                    ? sendBytes(record, bytes)
+                    : sendString(record, (String) record.value());
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        return future.whenComplete((result, ex) -> {
+            inFlight.decrementAndGet();
+            metricsTracker.kafkaSendCompleted(ex == null);
+            if (ex == null && brokerFailing) {
+                brokerFailing = false;
+            }
+            if (ex == null && record.receivedNanos() != NOT_TIMED) {
+                metricsTracker.recordLatency(record.pduType(), System.nanoTime() - record.receivedNanos());
+            }
+        });
+    }
+
+    private CompletableFuture<SendResult<String, String>> sendString(Pending record, String message) {
+        String destination = record.topic();
+        log.info("Sending to Kafka. Topic: {}, Key: {}, Message: {}", destination, record.key(), message);
+        CompletableFuture<SendResult<String, String>> future = record.key() == null
+                ? kafkaTemplate.send(destination, message)
+                : kafkaTemplate.send(destination, record.key(), message);
         future.whenComplete((result, ex) -> {
             if (ex == null) {
-                log.info("Sent message to Kafka topic {}: {}", topic, message);
+                log.info("Sent message to Kafka topic {}: {}", destination, message);
+            } else {
+                log.error("Failed to send message to Kafka topic {}: {}", destination, ex.getMessage());
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> sendBytes(Pending record, byte[] message) {
+        String destination = record.topic();
+        log.debug("Sending to Kafka. Topic: {}, Key: {}, {} bytes", destination, record.key(), message.length);
+        CompletableFuture<SendResult<String, byte[]>> future = record.key() == null
+                ? byteArrayKafkaTemplate.send(destination, message)
+                : byteArrayKafkaTemplate.send(destination, record.key(), message);
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to send message to Kafka topic {}: {}", destination, ex.getMessage());
+            }
+        });
+        return future;
+    }
+
+    // A record the journal cannot take (disk full, larger than a segment) is shed rather than failing the sender
+    private void spill(Pending record) {
+        try {
+            if (record.value() instanceof byte[] bytes) {
+                spillJournal.append(record.pduType(), record.topic(), record.key(), bytes);
             } else {
-                log.error("Failed to send message to Kafka topic {}: {}", topic, ex.getMessage());
+                spillJournal.append(record.pduType(), record.topic(), record.key(), (String) record.value());
             }
+            if (spillFailing) {
+                spillFailing = false;
+                log.info("Spill journal accepts records again");
+            }
+        } catch (RuntimeException e) {
+            metricsTracker.pduShed(record.pduType());
+            if (!spillFailing) {
+                spillFailing = true;
+                log.error("Cannot spill records, shedding them until the journal accepts them again: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replays spilled records in journal order, at most kafka.spill.replay-rate per second. A batch is
+     * only committed once Kafka acknowledged all of it; otherwise it is retried on a later run, so
+     * replay is at-least-once and nothing is lost. Only one batch is in flight at a time, and none is
+     * started while the backlog holds records, since everything in it is older than what was spilled.
+     */
+    public void replaySpillJournal() {
+        if (spillJournal == null || spillJournal.isEmpty() || backlogCount.get() > 0
+                || !replaying.compareAndSet(false, true)) {
+            return;
+        }
+        int batchSize = (int) Math.max(1, (long) spillReplayRate * spillReplayIntervalMs / 1000);
+        SpillJournal.Batch batch;
+        List<CompletableFuture<?>> acks;
+        try {
+            batch = spillJournal.read(batchSize);
+            acks = new ArrayList<>(batch.records().size());
+            for (SpilledRecord spilled : batch.records()) {
+                acks.add(send(new Pending(spilled.pduType(), PduBytes.NO_ENTITY, spilled.topic(), spilled.key(), spilled.value(), NOT_TIMED)));
+            }
+        } catch (RuntimeException e) {
+            replaying.set(false);
+            log.warn("Replay of spilled records failed, retrying later: {}", e.getMessage());
+            return;
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0]))
+                .orTimeout(spillReplayAckTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((done, ex) -> {
+                    try {
+                        if (ex != null) {
+                            log.warn("Replay of {} spilled records failed, retrying later: {}", batch.records().size(), ex.getMessage());
+                            return;
+                        }
+                        spillJournal.commit(batch);
+                        log.info("Replayed {} spilled records, {} still pending", batch.records().size(), spillJournal.getPendingRecords());
+                    } catch (RuntimeException e) {
+                        log.error("Could not commit replayed spill batch", e);
+                    } finally {
+                        replaying.set(false);
+                    }
+                });
+    }
+
+    @PostConstruct
+    void start() {
+        openSpillJournal();
+        if (spillJournal == null && maxInFlight <= 0) {
+            return;
+        }
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "kafka-producer-maintenance");
+            thread.setDaemon(true);
+            return thread;
         });
+        if (maxInFlight > 0) {
+            maintenance.scheduleWithFixedDelay(this::drainBacklogSafely, backlogDrainIntervalMs, backlogDrainIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (spillJournal != null) {
+            maintenance.scheduleWithFixedDelay(this::replaySpillJournal, spillReplayIntervalMs, spillReplayIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // An exception would cancel the scheduled drain for good
+    private void drainBacklogSafely() {
+        try {
+            drainBacklog();
+        } catch (RuntimeException e) {
+            log.warn("Backlog drain failed, retrying later: {}", e.getMessage());
+        }
+    }
+
+    void openSpillJournal() {
+        if (spillEnabled) {
+            Path directory = Path.of(spillDirectory);
+            if (!directory.isAbsolute()) {
+                throw new IllegalArgumentException("kafka.spill.directory must be an absolute path: " + spillDirectory);
+            }
+            spillJournal = new SpillJournal(directory, spillSegmentSize);
+            metricsTracker.registerSpillJournal(spillJournal);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (maintenance != null) {
+            maintenance.shutdown();
+        }
+        if (spillJournal != null) {
+            spillJournal.close();
+        }
+    }
+
+    /** Records handed to Kafka whose send has not completed yet. */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isSpillJournalEmpty() {
+        return spillJournal == null || spillJournal.isEmpty();
+    }
+
+    /** Records held back by the shedding policies, waiting for in-flight budget. */
+    public int getBacklogSize() {
+        return backlogCount.get();
+    }
+
+    private record Pending(int pduType, long entityId, String topic, String key, Object value, long receivedNanos) {
+    }
+
+    private record ConflationKey(String topic, long entityId) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.cap.dis.service;
+
+import com.cap.dis.model.RealTimeMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes the real-time metrics to dashboards over Server-Sent Events. Every snapshot the tracker
+ * publishes (dis.metrics.snapshot-interval-ms) is written to all subscribers, so clients see each one
+ * as it is published and the number of open dashboards does not add any counting work.
+ *
+ * <p>Writes run on a thread of their own, never on the publishing scheduler. If a slow client holds
+ * the writer up, snapshots published in the meantime are skipped, only the newest one is sent next.
+ */
+@Service
+public class MetricsStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsStreamService.class);
+    static final String EVENT_NAME = "realtime";
+
+    private final DisMetricsTracker metricsTracker;
+    private final Executor writer;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    // Snapshot waiting for the writer; non-null while a write is queued
+    private final AtomicReference<RealTimeMetrics> pending = new AtomicReference<>();
+
+    @Autowired
+    public MetricsStreamService(DisMetricsTracker metricsTracker) {
+        this(metricsTracker, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-stream");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    MetricsStreamService(DisMetricsTracker metricsTracker, Executor writer) {
+        this.metricsTracker = metricsTracker;
+        this.writer = writer;
+    }
+
+    @PostConstruct
+    void start() {
+        metricsTracker.registerSnapshotListener(this::broadcast);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (writer instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** New subscriber; it gets the next snapshot and every one after until the client goes away. */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L); // no timeout, the stream ends with the connection
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        log.debug("Metrics stream subscriber added, {} open", subscribers.size());
+        return emitter;
+    }
+
+    /** Queues a published snapshot for the subscribers; returns without writing anything. */
+    public void broadcast(RealTimeMetrics snapshot) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        RealTimeMetrics snapshot = pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(snapshot, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; completing the emitter also removes it
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+}
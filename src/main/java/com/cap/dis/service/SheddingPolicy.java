@@ -0,0 +1,28 @@
+package com.cap.dis.service;
+
+import java.util.Locale;
+
+/**
+ * What {@link KafkaProducerService} does with a record of a given PDU type while the in-flight
+ * budget towards Kafka is exhausted.
+ */
+public enum SheddingPolicy {
+
+    /**
+     * Always sent immediately, even over budget (events such as Fire, Detonation, Collision). These
+     * overtake queued records, including Entity States of the same entity.
+     */
+    NEVER_DROP,
+    /**
+     * Held in the backlog; a newer record for the same topic and primary EntityID replaces the pending
+     * one. Records without an EntityID are queued as with {@link #DROP_OLDEST}.
+     */
+    CONFLATE,
+    /** Held in the backlog; when the backlog is full the oldest pending record is dropped. */
+    DROP_OLDEST;
+
+    /** Parses property values such as "never-drop" or "drop_oldest". */
+    public static SheddingPolicy fromProperty(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
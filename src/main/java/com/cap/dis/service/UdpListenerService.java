@@ -1,5 +1,15 @@
 package com.cap.dis.service;
 
+import com.cap.dis.codec.DisHeader;
+import com.cap.dis.codec.FlyweightJson;
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.codec.RawPduEnvelope;
+import com.cap.dis.codec.RecordKeyStrategy;
+import com.cap.dis.filter.DeadReckoningFilter;
+import com.cap.dis.filter.EntityStateConflator;
+import com.cap.dis.metrics.TimedStage;
+import com.cap.dis.pipeline.PduEvent;
+import com.cap.dis.pipeline.PduPipeline;
 import edu.nps.moves.dis.*;
 import edu.nps.moves.disutil.PduFactory;
 import org.slf4j.Logger;
@@ -11,21 +21,78 @@ import org.springframework.stereotype.Service;
 import edu.nps.moves.dis.DataPdu;
 import edu.nps.moves.dis.ElectronicEmissionsPdu;
 
+import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 @Service
 public class UdpListenerService {
 
     private static final Logger log = LoggerFactory.getLogger(UdpListenerService.class);
-    
+    private static final int MIN_PDU_SIZE = 12; // Minimum PDU header size is 12 bytes
+    private static final String RECEIVE_MODE_CHANNEL = "channel";
+    private static final String OUTPUT_MODE_JSON_BYTES = "json-bytes";
+    private static final String OUTPUT_MODE_RAW = "raw";
+
     @Value("${udp.port}")
     private int port;
 
     @Value("${udp.buffer-size}")
     private int bufferSize;
 
+    // "socket" = blocking DatagramSocket with a copied byte[] per datagram,
+    // "channel" = DatagramChannel reading into one reusable direct ByteBuffer
+    @Value("${udp.receive-mode:socket}")
+    private String receiveMode;
+
+    // Number of receiver threads bound to udp.port. With more than one, every receiver
+    // opens its own socket with SO_REUSEPORT and the kernel spreads datagrams across them
+    // (hashed by source address, so one simulator always lands on the same receiver).
+    @Value("${udp.receiver-threads:1}")
+    private int receiverThreads;
+
+    // When enabled the receive loop only drains the socket into a preallocated ring; decode,
+    // JSON serialization and the Kafka hand-off each run on their own thread behind it
+    @Value("${udp.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${udp.pipeline.ring-size:8192}")
+    private int pipelineRingSize;
+
+    // Decode/serialize workers per receiver pipeline. Datagrams are sharded by their EntityID, so all
+    // PDUs of one entity go through the same worker and reach Kafka in the order they arrived.
+    @Value("${udp.pipeline.decode-workers:1}")
+    private int pipelineDecodeWorkers;
+
+    // "json" = JSON Strings through the StringSerializer template, "json-bytes" = JSON encoded
+    // straight into UTF-8 bytes (hot types never become a String) and sent with the ByteArraySerializer,
+    // "raw" = the original datagram in a RawPduEnvelope (receive time, source, type, exercise), no JSON at all
+    @Value("${dis.output.mode:json}")
+    private String outputMode;
+
+    // Record key derived from the PDU's primary entity (kafka.key-strategy: none, entity, exercise-entity)
+    private RecordKeyStrategy keyStrategy = RecordKeyStrategy.NONE;
+
+    // Header filters indexed by exercise ID / PDU type; null accepts everything. Filtered datagrams
+    // are still counted but never unmarshalled or published.
+    private boolean[] acceptedExerciseIds;
+    private boolean[] acceptedPduTypes;
+
+    // Present when dis.dead-reckoning.enabled; drops Entity States that dead reckoning already predicts
+    private DeadReckoningFilter deadReckoningFilter;
+
+    // Present when dis.conflation.enabled; holds only the newest Entity State per entity until its window ends
+    private EntityStateConflator conflator;
+
     private final KafkaProducerService kafkaProducerService;
     private final PduFactory pduFactory = new PduFactory();
     private final DisMetricsTracker metricsTracker;
@@ -36,20 +103,102 @@ public class UdpListenerService {
         this.metricsTracker = metricsTracker;
     }
 
+    @Autowired(required = false)
+    void setDeadReckoningFilter(DeadReckoningFilter deadReckoningFilter) {
+        this.deadReckoningFilter = deadReckoningFilter;
+    }
+
+    @Autowired(required = false)
+    void setConflator(EntityStateConflator conflator) {
+        this.conflator = conflator;
+    }
+
+    @Value("${dis.filter.exercise-ids:}")
+    void setAcceptedExerciseIds(int[] exerciseIds) {
+        this.acceptedExerciseIds = toLookupTable(exerciseIds);
+    }
+
+    @Value("${dis.filter.pdu-types:}")
+    void setAcceptedPduTypes(int[] pduTypes) {
+        this.acceptedPduTypes = toLookupTable(pduTypes);
+    }
+
+    @Value("${kafka.key-strategy:none}")
+    void setKeyStrategy(String keyStrategy) {
+        this.keyStrategy = RecordKeyStrategy.fromProperty(keyStrategy);
+    }
+
+    private static boolean[] toLookupTable(int[] values) {
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        boolean[] table = new boolean[256];
+        for (int value : values) {
+            table[value & 0xFF] = true;
+        }
+        return table;
+    }
+
     @Async
     public void startListening() {
-        try (DatagramSocket socket = new DatagramSocket(port)) {
+        int receivers = Math.max(1, receiverThreads);
+        boolean reusePort = receivers > 1;
+        // Each receiver runs its own receive -> decode -> publish loop; PduFactory is stateless
+        // and KafkaTemplate is thread-safe, so nothing on that path is shared besides the metrics.
+        for (int i = 1; i < receivers; i++) {
+            int index = i;
+            Thread receiver = new Thread(() -> listen(index, reusePort), "udp-receiver-" + i);
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+        listen(0, reusePort);
+    }
+
+    private void listen(int index, boolean reusePort) {
+        if (RECEIVE_MODE_CHANNEL.equalsIgnoreCase(receiveMode)) {
+            listenOnChannel(index, reusePort);
+        } else {
+            listenOnSocket(index, reusePort);
+        }
+    }
+
+    private void listenOnSocket(int index, boolean reusePort) {
+        try (DatagramSocket socket = new DatagramSocket(null)) {
+            if (reusePort) {
+                socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            socket.bind(new InetSocketAddress(port));
+            if (pipelineEnabled) {
+                receiveIntoPipeline(socket, startPipeline(index, false));
+                return;
+            }
             byte[] buffer = new byte[bufferSize];
-            log.info("UDP Listener started on port {}", port);
+            log.info("UDP Listener started on port {} ({})", port, Thread.currentThread().getName());
             while (true) {
                 DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                long waitStart = metricsTracker.stageStart();
                 socket.receive(packet);
+                long receivedNanos = System.nanoTime();
+                metricsTracker.stageEnd(TimedStage.SOCKET_WAIT, waitStart);
+                ByteBuffer datagram = ByteBuffer.wrap(buffer, 0, packet.getLength());
+                metricsTracker.talkerReceived(datagram, 0, packet.getAddress());
+                int pduType = pduTypeOf(datagram, 0);
+                String topic = topicFor(datagram, 0);
+                String key = keyStrategy.keyFor(datagram, 0);
+                if (isRawOutput()) {
+                    sendIfPresent(datagram, pduType, topic, key, wrapRawPdu(datagram, packet.getSocketAddress(), System.currentTimeMillis()), receivedNanos);
+                    continue;
+                }
+                if (isJsonBytesOutput()) {
+                    // Encoded from the receive buffer in place, as in channel mode; only the json path copies
+                    sendIfPresent(datagram, pduType, topic, key, encodeDisPdu(datagram), receivedNanos);
+                    continue;
+                }
                 byte[] rawData = Arrays.copyOfRange(packet.getData(), 0, packet.getLength());
-
                 // Decode PDU first to determine its type
                 String decodedData = decodeDisPdu(rawData);
                 if (decodedData != null) { // Check if decoding was successful before sending
-                    kafkaProducerService.sendMessage(decodedData);
+                    send(datagram, pduType, topic, key, decodedData, receivedNanos);
                 }
             }
         } catch (Exception e) {
@@ -59,60 +208,369 @@ public class UdpListenerService {
         }
     }
 
-    private String decodeDisPdu(byte[] rawData) {
-        try {
-            // Check if the data is too small to be a valid PDU
-            if (rawData.length < 12) { // Minimum PDU header size is 12 bytes
-                log.warn("Received PDU data too small to be valid: {} bytes", rawData.length);
-                return "{\"error\":\"PDU data too small to be valid\",\"length\":"+rawData.length+"}";
+    private void listenOnChannel(int index, boolean reusePort) {
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            if (reusePort) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            channel.bind(new InetSocketAddress(port));
+            if (pipelineEnabled) {
+                receiveIntoPipeline(channel, startPipeline(index, true));
+                return;
             }
-            
-            Pdu pdu = pduFactory.createPdu(rawData);
-            if (pdu != null) {
-                // Track PDU by type
-                if (pdu instanceof EntityStatePdu) {
-                    metricsTracker.entityStatePduReceived();
-                } else if (pdu instanceof FirePdu) {
-                    metricsTracker.fireEventPduReceived();
-                } else if (pdu instanceof CollisionPdu) {
-                    metricsTracker.collisionPduReceived();
-                } else if (pdu instanceof DetonationPdu) {
-                    metricsTracker.detonationPduReceived();
-                } else if (pdu instanceof DataPdu) {
-                    metricsTracker.dataPduReceived();
-                } else if (pdu instanceof ActionRequestPdu) {
-                    metricsTracker.actionRequestPduReceived();
-                } else if (pdu instanceof StartResumePdu) {
-                    metricsTracker.startResumePduReceived();
-                } else if (pdu instanceof SetDataPdu) {
-                    metricsTracker.setDataPduReceived();
-                } else if (pdu instanceof DesignatorPdu) {
-                    metricsTracker.designatorPduReceived();
-                } else if (pdu instanceof ElectronicEmissionsPdu) {
-                    metricsTracker.electromagneticEmissionsPduReceived();
-                } else {
-                    // For other PDU types, just track as a generic PDU
-                    metricsTracker.pduReceived();
+            // One direct buffer for the lifetime of the listener: the kernel copies the datagram
+            // straight into it and the PDU is unmarshalled from it without an intermediate byte[]
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+            log.info("UDP Listener started on port {} (channel mode, {})", port, Thread.currentThread().getName());
+            while (true) {
+                buffer.clear();
+                long waitStart = metricsTracker.stageStart();
+                SocketAddress source = channel.receive(buffer);
+                long receivedNanos = System.nanoTime();
+                metricsTracker.stageEnd(TimedStage.SOCKET_WAIT, waitStart);
+                buffer.flip();
+                metricsTracker.talkerReceived(buffer, 0, addressOf(source));
+
+                int pduType = pduTypeOf(buffer, 0);
+                String topic = topicFor(buffer, 0);
+                String key = keyStrategy.keyFor(buffer, 0);
+                if (isRawOutput()) {
+                    sendIfPresent(buffer, pduType, topic, key, wrapRawPdu(buffer, source, System.currentTimeMillis()), receivedNanos);
+                    continue;
                 }
-                
-                // This log helps verify what the DIS library returns directly
-                log.info("PDU Type: {}, Raw PDU Timestamp from pdu.getTimestamp(): {}",
-                         pdu.getClass().getSimpleName(), pdu.getTimestamp());
-                return pduToJson(pdu);
+                if (isJsonBytesOutput()) {
+                    sendIfPresent(buffer, pduType, topic, key, encodeDisPdu(buffer), receivedNanos);
+                    continue;
+                }
+                String decodedData = decodeDisPdu(buffer);
+                if (decodedData != null) {
+                    send(buffer, pduType, topic, key, decodedData, receivedNanos);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error in UDP listener", e);
+            System.exit(1);
+        }
+    }
+
+    private PduPipeline startPipeline(int index, boolean directBuffers) {
+        int ringSize = Integer.highestOneBit(Math.max(2, pipelineRingSize));
+        PduPipeline pipeline = new PduPipeline("udp-receiver-" + index, ringSize, bufferSize, directBuffers,
+                pipelineDecodeWorkers, event -> PduBytes.primaryEntityId(event.getBuffer(), 0));
+        pipeline.start(this::decodeStage, this::serializeStage, this::publishStage);
+        metricsTracker.registerPipeline(pipeline);
+        return pipeline;
+    }
+
+    // Receive stage: drain the socket straight into ring slots, nothing else
+    private void receiveIntoPipeline(DatagramSocket socket, PduPipeline pipeline) throws IOException {
+        log.info("UDP Listener started on port {} (pipeline, {})", port, pipeline.getName());
+        DatagramPacket packet = new DatagramPacket(new byte[0], 0);
+        while (true) {
+            PduEvent event = pipeline.claim();
+            ByteBuffer slot = event.getBuffer();
+            packet.setData(slot.array(), slot.arrayOffset(), slot.capacity());
+            long waitStart = metricsTracker.stageStart();
+            socket.receive(packet);
+            slot.limit(packet.getLength());
+            event.setReceivedNanos(System.nanoTime());
+            metricsTracker.stageEnd(TimedStage.SOCKET_WAIT, waitStart);
+            event.setSource(packet.getSocketAddress());
+            event.setReceivedAt(System.currentTimeMillis());
+            pipeline.publish();
+        }
+    }
+
+    private void receiveIntoPipeline(DatagramChannel channel, PduPipeline pipeline) throws IOException {
+        log.info("UDP Listener started on port {} (channel mode pipeline, {})", port, pipeline.getName());
+        while (true) {
+            PduEvent event = pipeline.claim();
+            long waitStart = metricsTracker.stageStart();
+            event.setSource(channel.receive(event.getBuffer()));
+            event.setReceivedNanos(System.nanoTime());
+            metricsTracker.stageEnd(TimedStage.SOCKET_WAIT, waitStart);
+            event.setReceivedAt(System.currentTimeMillis());
+            event.getBuffer().flip();
+            pipeline.publish();
+        }
+    }
+
+    private void decodeStage(PduEvent event) {
+        ByteBuffer buffer = event.getBuffer();
+        metricsTracker.talkerReceived(buffer, 0, addressOf(event.getSource()));
+        // Routing is derived here rather than in the single publish thread; decoding moves the buffer position
+        event.setTopic(topicFor(buffer, 0));
+        event.setKey(keyStrategy.keyFor(buffer, 0));
+        if (isRawOutput()) {
+            event.setPayload(wrapRawPdu(buffer, event.getSource(), event.getReceivedAt()));
+            return;
+        }
+        int length = buffer.remaining();
+        if (length < MIN_PDU_SIZE) {
+            event.setJson(pduTooSmall(length));
+            return;
+        }
+        if (!acceptHeader(buffer, buffer.position())) {
+            return;
+        }
+        if (FlyweightJson.canWrite(buffer, buffer.position())) {
+            event.setFlyweight(true);
+            return;
+        }
+        try {
+            Pdu pdu = unmarshal(buffer);
+            if (pdu == null) {
+                event.setJson(unknownPdu(length));
             } else {
-                log.warn("Received unknown PDU type from raw data of length: {}", rawData.length);
-                // It might be useful to log a snippet of the rawData (hex encoded) for unknown types
-                return "{\"error\":\"Unknown PDU type\",\"length\":"+rawData.length+"}";
+                event.setPdu(pdu);
             }
-        } catch (java.nio.BufferUnderflowException e) {
-            log.error("BufferUnderflowException when decoding PDU: Insufficient data in buffer of length: {}", rawData.length);
-            return "{\"error\":\"Insufficient data in PDU buffer\",\"length\":"+rawData.length+"}";
         } catch (Exception e) {
-            log.error("Failed to decode PDU from raw data of length: {}", rawData.length, e);
-            return "{\"error\":\"Error decoding PDU\",\"length\":"+rawData.length+",\"message\":\"" + e.getMessage() + "\"}";
+            event.setJson(decodeFailure(e, length));
+        }
+    }
+
+    private void serializeStage(PduEvent event) {
+        if (event.isFlyweight()) {
+            ByteBuffer buffer = event.getBuffer();
+            if (isJsonBytesOutput()) {
+                event.setPayload(flyweightJsonBytes(buffer, buffer.position()));
+                return;
+            }
+            event.setJson(flyweightJson(buffer, buffer.position()));
+            return;
+        }
+        if (event.getJson() == null && event.getPdu() != null) {
+            event.setJson(toJson(event.getPdu(), event.getBuffer().limit()));
+        }
+        if (isJsonBytesOutput() && event.getJson() != null) {
+            event.setPayload(event.getJson().getBytes(StandardCharsets.UTF_8));
+            event.setJson(null);
+        }
+    }
+
+    private void publishStage(PduEvent event) {
+        ByteBuffer buffer = event.getBuffer();
+        if (event.getPayload() != null) {
+            send(buffer, pduTypeOf(buffer, 0), event.getTopic(), event.getKey(), event.getPayload(), event.getReceivedNanos());
+        } else if (event.getJson() != null) {
+            send(buffer, pduTypeOf(buffer, 0), event.getTopic(), event.getKey(), event.getJson(), event.getReceivedNanos());
+        }
+    }
+
+    private boolean isRawOutput() {
+        return OUTPUT_MODE_RAW.equalsIgnoreCase(outputMode);
+    }
+
+    private boolean isJsonBytesOutput() {
+        return OUTPUT_MODE_JSON_BYTES.equalsIgnoreCase(outputMode);
+    }
+
+    private void sendIfPresent(ByteBuffer datagram, int pduType, String topic, String key, byte[] payload, long receivedNanos) {
+        if (payload != null) {
+            send(datagram, pduType, topic, key, payload, receivedNanos);
+        }
+    }
+
+    // Hands a record to Kafka, or to the conflation window when it is an Entity State and conflation is on.
+    // receivedNanos (System.nanoTime() at receive) travels with it for the receive-to-ack latency.
+    private void send(ByteBuffer datagram, int pduType, String topic, String key, byte[] payload, long receivedNanos) {
+        long entityId = PduBytes.primaryEntityId(datagram, 0);
+        if (!conflate(pduType, entityId, topic, key, payload, receivedNanos)) {
+            long start = metricsTracker.stageStart();
+            kafkaProducerService.sendMessage(pduType, entityId, topic, key, payload, receivedNanos);
+            metricsTracker.stageEnd(TimedStage.KAFKA_ENQUEUE, start);
+        }
+    }
+
+    private void send(ByteBuffer datagram, int pduType, String topic, String key, String json, long receivedNanos) {
+        long entityId = PduBytes.primaryEntityId(datagram, 0);
+        if (!conflate(pduType, entityId, topic, key, json, receivedNanos)) {
+            long start = metricsTracker.stageStart();
+            kafkaProducerService.sendMessage(pduType, entityId, topic, key, json, receivedNanos);
+            metricsTracker.stageEnd(TimedStage.KAFKA_ENQUEUE, start);
+        }
+    }
+
+    private boolean conflate(int pduType, long entityId, String topic, String key, Object message, long receivedNanos) {
+        return conflator != null && conflator.offer(pduType, entityId, topic, key, message, receivedNanos);
+    }
+
+    private static InetAddress addressOf(SocketAddress source) {
+        return source instanceof InetSocketAddress inet ? inet.getAddress() : null;
+    }
+
+    // PDU type for the Kafka shedding policies; -1 for datagrams too short to have a header
+    private static int pduTypeOf(ByteBuffer buffer, int start) {
+        return buffer.limit() - start < MIN_PDU_SIZE ? -1 : DisHeader.pduType(buffer, start);
+    }
+
+    // Destination from the header's exercise / type / family bytes; null (= kafka.topic) for
+    // datagrams too short to have a header, which only ever produce an error record
+    private String topicFor(ByteBuffer buffer, int start) {
+        if (buffer.limit() - start < MIN_PDU_SIZE) {
+            return null;
+        }
+        return kafkaProducerService.topicFor(DisHeader.exerciseId(buffer, start), DisHeader.pduType(buffer, start),
+                DisHeader.protocolFamily(buffer, start));
+    }
+
+    // Raw passthrough: header checks only, the datagram goes out untouched behind a small envelope.
+    // Anything too short to carry a DIS header is dropped, since there is no JSON error record to send.
+    private byte[] wrapRawPdu(ByteBuffer buffer, SocketAddress source, long receivedAt) {
+        int length = buffer.remaining();
+        if (length < MIN_PDU_SIZE) {
+            log.warn("Dropping datagram too small to be a PDU: {} bytes", length);
+            return null;
+        }
+        if (!acceptHeader(buffer, buffer.position())) {
+            return null;
+        }
+        return RawPduEnvelope.encode(buffer, source, receivedAt);
+    }
+
+    // json-bytes counterpart of decodeDisPdu(ByteBuffer): hot types are encoded from the datagram
+    // directly into bytes, everything else (including error JSON) is built as before and encoded once
+    private byte[] encodeDisPdu(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() >= MIN_PDU_SIZE && FlyweightJson.canWrite(buffer, start)) {
+            if (!acceptHeader(buffer, start)) {
+                return null;
+            }
+            return flyweightJsonBytes(buffer, start);
+        }
+        String json = decodeDisPdu(buffer);
+        return json == null ? null : json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String decodeDisPdu(byte[] rawData) {
+        // Check if the data is too small to be a valid PDU
+        if (rawData.length < MIN_PDU_SIZE) {
+            return pduTooSmall(rawData.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(rawData);
+        if (!acceptHeader(buffer, 0)) {
+            return null;
+        }
+        // Hot PDU types are read in place; PduFactory only sees the rest
+        if (FlyweightJson.canWrite(buffer, 0)) {
+            return flyweightJson(buffer, 0);
+        }
+        try {
+            return toJson(unmarshal(rawData), rawData.length);
+        } catch (Exception e) {
+            return decodeFailure(e, rawData.length);
+        }
+    }
+
+    // Same as decodeDisPdu(byte[]) but unmarshals straight from the receive buffer
+    // (position to limit), so the channel path never copies the datagram.
+    private String decodeDisPdu(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (length < MIN_PDU_SIZE) {
+            return pduTooSmall(length);
+        }
+        if (!acceptHeader(buffer, buffer.position())) {
+            return null;
+        }
+        if (FlyweightJson.canWrite(buffer, buffer.position())) {
+            return flyweightJson(buffer, buffer.position());
+        }
+        try {
+            return toJson(unmarshal(buffer), length);
+        } catch (Exception e) {
+            return decodeFailure(e, length);
+        }
+    }
+
+    // Counts the datagram by the PDU type byte of its header and its primary entity towards the
+    // active entity estimates, then applies the header filters and the dead-reckoning filter, all
+    // before anything is unmarshalled. Returns false when the datagram should be dropped.
+    private boolean acceptHeader(ByteBuffer buffer, int start) {
+        long started = metricsTracker.stageStart();
+        int pduType = DisHeader.pduType(buffer, start);
+        metricsTracker.pduTypeReceived(pduType);
+        long entityId = PduBytes.primaryEntityId(buffer, start);
+        if (entityId != PduBytes.NO_ENTITY) {
+            metricsTracker.entitySeen(DisHeader.exerciseId(buffer, start), pduType, entityId);
+        }
+        boolean accepted = accepts(acceptedPduTypes, pduType) && accepts(acceptedExerciseIds, DisHeader.exerciseId(buffer, start))
+                && (deadReckoningFilter == null || deadReckoningFilter.shouldPublish(buffer, start, System.currentTimeMillis()));
+        metricsTracker.stageEnd(TimedStage.DISPATCH, started);
+        return accepted;
+    }
+
+    private static boolean accepts(boolean[] table, int value) {
+        return table == null || table[value];
+    }
+
+    // PduFactory unmarshal of the buffer from position to limit, timed as the unmarshal stage
+    private Pdu unmarshal(ByteBuffer buffer) {
+        long start = metricsTracker.stageStart();
+        try {
+            return pduFactory.createPdu(buffer);
+        } finally {
+            metricsTracker.stageEnd(TimedStage.UNMARSHAL, start);
+        }
+    }
+
+    private Pdu unmarshal(byte[] rawData) {
+        long start = metricsTracker.stageStart();
+        try {
+            return pduFactory.createPdu(rawData);
+        } finally {
+            metricsTracker.stageEnd(TimedStage.UNMARSHAL, start);
+        }
+    }
+
+    private String flyweightJson(ByteBuffer buffer, int start) {
+        long started = metricsTracker.stageStart();
+        String json = FlyweightJson.toJson(buffer, start, System.currentTimeMillis());
+        metricsTracker.stageEnd(TimedStage.SERIALIZE, started);
+        return json;
+    }
+
+    private byte[] flyweightJsonBytes(ByteBuffer buffer, int start) {
+        long started = metricsTracker.stageStart();
+        byte[] json = FlyweightJson.toJsonBytes(buffer, start, System.currentTimeMillis());
+        metricsTracker.stageEnd(TimedStage.SERIALIZE, started);
+        return json;
+    }
+
+    private String toJson(Pdu pdu, int length) {
+        if (pdu == null) {
+            return unknownPdu(length);
+        }
+        // This log helps verify what the DIS library returns directly
+        log.debug("PDU Type: {}, Raw PDU Timestamp from pdu.getTimestamp(): {}",
+                  pdu.getClass().getSimpleName(), pdu.getTimestamp());
+        long start = metricsTracker.stageStart();
+        String json = pduToJson(pdu);
+        metricsTracker.stageEnd(TimedStage.SERIALIZE, start);
+        return json;
+    }
+
+    private String unknownPdu(int length) {
+        log.warn("Received unknown PDU type from raw data of length: {}", length);
+        // It might be useful to log a snippet of the rawData (hex encoded) for unknown types
+        return "{\"error\":\"Unknown PDU type\",\"length\":"+length+"}";
+    }
+
+    private String pduTooSmall(int length) {
+        log.warn("Received PDU data too small to be valid: {} bytes", length);
+        return "{\"error\":\"PDU data too small to be valid\",\"length\":"+length+"}";
+    }
+
+    private String decodeFailure(Exception e, int length) {
+        if (e instanceof BufferUnderflowException) {
+            log.error("BufferUnderflowException when decoding PDU: Insufficient data in buffer of length: {}", length);
+            return "{\"error\":\"Insufficient data in PDU buffer\",\"length\":"+length+"}";
         }
+        log.error("Failed to decode PDU from raw data of length: {}", length, e);
+        return "{\"error\":\"Error decoding PDU\",\"length\":"+length+",\"message\":\"" + e.getMessage() + "\"}";
     }
 
+    // FlyweightJson writes the same structure for EntityState, Fire, Detonation, Collision and
+    // Designator straight from the datagram; keep the two in step
     private String pduToJson(Pdu pdu) {
         StringBuilder json = new StringBuilder("{");
         json.append("\"type\":\"").append(pdu.getClass().getSimpleName()).append("\",");
@@ -0,0 +1,32 @@
+package com.cap.dis.codec;
+
+import edu.nps.moves.dis.DetonationPdu;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DisHeaderTest {
+
+    @Test
+    void readsAllHeaderFieldsOfMarshalledPdu() {
+        DetonationPdu pdu = new DetonationPdu();
+        pdu.setProtocolVersion((short) 7);
+        pdu.setExerciseID((short) 200);
+        pdu.setTimestamp(0xF0000001L); // MSB set: absolute DIS time, must stay unsigned
+        byte[] bytes = pdu.marshal();
+
+        // Put the PDU behind some unrelated bytes to prove reads are relative to the given start
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 5);
+        buffer.position(5);
+        buffer.put(bytes);
+
+        assertEquals(7, DisHeader.protocolVersion(buffer, 5));
+        assertEquals(200, DisHeader.exerciseId(buffer, 5));
+        assertEquals(3, DisHeader.pduType(buffer, 5));
+        assertEquals(2, DisHeader.protocolFamily(buffer, 5));
+        assertEquals(0xF0000001L, DisHeader.timestamp(buffer, 5));
+        assertEquals(bytes.length, DisHeader.length(buffer, 5));
+    }
+}
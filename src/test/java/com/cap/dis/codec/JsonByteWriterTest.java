@@ -0,0 +1,53 @@
+package com.cap.dis.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonByteWriterTest {
+
+    @Test
+    void numbersMatchStringBuilderFormatting() {
+        long[] longs = {0, 7, -1, 10, 65535, 4294967295L, Long.MAX_VALUE, Long.MIN_VALUE, 1_000_000_000_000_000_000L};
+        double[] doubles = {0.0, -0.0, 1.5, -2707215.123456789, 4.9E-324, 1.0E22, Double.NaN};
+        JsonByteWriter writer = new JsonByteWriter();
+        StringBuilder expected = new StringBuilder();
+        for (long value : longs) {
+            writer.number(value).ascii(",");
+            expected.append(value).append(",");
+        }
+        for (double value : doubles) {
+            writer.number(value).ascii(",");
+            expected.append(value).append(",");
+        }
+
+        assertEquals(expected.toString(), writer.toString());
+        assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), writer.toByteArray());
+    }
+
+    @Test
+    void growsPastInitialCapacityAndResets() {
+        JsonByteWriter writer = new JsonByteWriter();
+        String chunk = "\"key\":1234567890,";
+        for (int i = 0; i < 100; i++) {
+            writer.ascii(chunk);
+        }
+        assertEquals(chunk.length() * 100, writer.size());
+        assertEquals(chunk.repeat(100), writer.toString());
+
+        writer.reset();
+        assertEquals("{}", writer.ascii("{}").toString());
+    }
+
+    @Test
+    void forCurrentThreadReturnsAnEmptyReusedWriter() {
+        JsonByteWriter first = JsonByteWriter.forCurrentThread();
+        first.ascii("leftover");
+        JsonByteWriter second = JsonByteWriter.forCurrentThread();
+
+        assertSame(first, second);
+        assertEquals(0, second.size());
+    }
+}
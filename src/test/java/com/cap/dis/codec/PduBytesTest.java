@@ -0,0 +1,53 @@
+package com.cap.dis.codec;
+
+import edu.nps.moves.dis.EntityID;
+import edu.nps.moves.dis.FirePdu;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PduBytesTest {
+
+    @Test
+    void primaryEntityId_readsFiringEntityOfMarshalledFirePdu() {
+        FirePdu fire = new FirePdu();
+        EntityID firing = new EntityID();
+        firing.setSite(65535); // Unsigned 16-bit values must not go negative
+        firing.setApplication(23);
+        firing.setEntity(1002);
+        fire.setFiringEntityID(firing);
+        ByteBuffer buffer = ByteBuffer.wrap(fire.marshal());
+
+        assertEquals(65535L << 32 | 23L << 16 | 1002L, PduBytes.primaryEntityId(buffer));
+        assertEquals(0, buffer.position(), "Reads must not move the buffer");
+    }
+
+    @Test
+    void primaryEntityId_usesAbsoluteStartIgnoringPosition() {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.putShort(12, (short) 1).putShort(14, (short) 2).putShort(16, (short) 3);
+        buffer.position(20);
+
+        assertEquals(1L << 32 | 2L << 16 | 3L, PduBytes.primaryEntityId(buffer, 0));
+    }
+
+    @Test
+    void primaryEntityId_tooShortForEntity() {
+        ByteBuffer buffer = ByteBuffer.allocate(17);
+
+        assertEquals(PduBytes.NO_ENTITY, PduBytes.primaryEntityId(buffer));
+    }
+
+    @Test
+    void shardOf_isStableAndInRange() {
+        for (long entity = 0; entity < 1000; entity++) {
+            int shard = PduBytes.shardOf(entity, 7);
+            assertTrue(shard >= 0 && shard < 7);
+            assertEquals(shard, PduBytes.shardOf(entity, 7));
+        }
+        assertEquals(0, PduBytes.shardOf(PduBytes.NO_ENTITY, 7));
+        assertEquals(0, PduBytes.shardOf(42L, 1));
+    }
+}
@@ -0,0 +1,25 @@
+package com.cap.dis.codec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PduTypeNamesTest {
+
+    @Test
+    void namesAssignedTypesFromTheDisEnumeration() {
+        assertEquals("Other", PduTypeNames.name(0));
+        assertEquals("Entity State", PduTypeNames.name(1));
+        assertEquals("Transmitter", PduTypeNames.name(25));
+        assertEquals("Signal", PduTypeNames.name(26));
+        assertEquals("IFF", PduTypeNames.name(28));
+        assertEquals("Attribute", PduTypeNames.name(72));
+    }
+
+    @Test
+    void unassignedTypesAreUnknown() {
+        assertEquals("Unknown", PduTypeNames.name(73));
+        assertEquals("Unknown", PduTypeNames.name(255));
+        assertEquals("Unknown", PduTypeNames.name(-1)); // masked to 255
+    }
+}
@@ -0,0 +1,57 @@
+package com.cap.dis.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawPduEnvelopeTest {
+
+    private static byte[] header(int exerciseId, int pduType, int length) {
+        byte[] pdu = new byte[length];
+        pdu[0] = 7;
+        pdu[1] = (byte) exerciseId;
+        pdu[2] = (byte) pduType;
+        pdu[length - 1] = 0x5A;
+        return pdu;
+    }
+
+    @Test
+    void encode_wrapsDatagramWithEnvelope() throws Exception {
+        byte[] pdu = header(200, 2, 96);
+        // datagram sits in the middle of a larger receive buffer
+        ByteBuffer buffer = ByteBuffer.allocate(128);
+        buffer.position(10);
+        buffer.put(pdu);
+        buffer.flip().position(10);
+        InetSocketAddress source = new InetSocketAddress(InetAddress.getByName("10.1.2.3"), 3000);
+
+        byte[] record = RawPduEnvelope.encode(buffer, source, 1_700_000_000_123L);
+
+        ByteBuffer envelope = ByteBuffer.wrap(record);
+        assertEquals(10, buffer.position());
+        assertEquals(RawPduEnvelope.VERSION, RawPduEnvelope.version(envelope));
+        assertEquals(2, RawPduEnvelope.pduType(envelope));
+        assertEquals(200, RawPduEnvelope.exerciseId(envelope));
+        assertEquals(1_700_000_000_123L, RawPduEnvelope.receivedAt(envelope));
+        assertEquals(3000, RawPduEnvelope.sourcePort(envelope));
+        assertEquals(InetAddress.getByName("10.1.2.3"), RawPduEnvelope.sourceAddress(envelope));
+        assertEquals(RawPduEnvelope.HEADER_SIZE + 4 + pdu.length, record.length);
+        assertArrayEquals(pdu, Arrays.copyOfRange(record, RawPduEnvelope.pduOffset(envelope), record.length));
+    }
+
+    @Test
+    void encode_withoutSourceLeavesAddressEmpty() throws Exception {
+        byte[] pdu = header(1, 1, 12);
+
+        ByteBuffer envelope = ByteBuffer.wrap(RawPduEnvelope.encode(ByteBuffer.wrap(pdu), null, 0L));
+
+        assertNull(RawPduEnvelope.sourceAddress(envelope));
+        assertEquals(0, RawPduEnvelope.sourcePort(envelope));
+        assertEquals(RawPduEnvelope.HEADER_SIZE, RawPduEnvelope.pduOffset(envelope));
+    }
+}
@@ -0,0 +1,41 @@
+package com.cap.dis.codec;
+
+import edu.nps.moves.dis.FirePdu;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordKeyStrategyTest {
+
+    private static ByteBuffer firePdu() {
+        FirePdu pdu = new FirePdu();
+        pdu.setExerciseID((short) 9);
+        pdu.getFiringEntityID().setSite(65535);
+        pdu.getFiringEntityID().setApplication(23);
+        pdu.getFiringEntityID().setEntity(1002);
+        pdu.getTargetEntityID().setEntity(77);
+        return ByteBuffer.wrap(pdu.marshal());
+    }
+
+    @Test
+    void keyFor_usesPrimaryEntity() {
+        assertEquals("65535:23:1002", RecordKeyStrategy.ENTITY.keyFor(firePdu(), 0));
+        assertEquals("9:65535:23:1002", RecordKeyStrategy.EXERCISE_ENTITY.keyFor(firePdu(), 0));
+        assertNull(RecordKeyStrategy.NONE.keyFor(firePdu(), 0));
+    }
+
+    @Test
+    void keyFor_returnsNullWithoutEntity() {
+        assertNull(RecordKeyStrategy.ENTITY.keyFor(ByteBuffer.allocate(17), 0));
+    }
+
+    @Test
+    void fromProperty_parsesKebabCase() {
+        assertEquals(RecordKeyStrategy.EXERCISE_ENTITY, RecordKeyStrategy.fromProperty("exercise-entity"));
+        assertEquals(RecordKeyStrategy.ENTITY, RecordKeyStrategy.fromProperty(" Entity "));
+        assertEquals(RecordKeyStrategy.NONE, RecordKeyStrategy.fromProperty(""));
+        assertThrows(IllegalArgumentException.class, () -> RecordKeyStrategy.fromProperty("partition"));
+    }
+}
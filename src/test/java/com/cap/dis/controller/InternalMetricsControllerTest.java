@@ -1,7 +1,19 @@
 package com.cap.dis.controller;
 
+import com.cap.dis.model.DeadReckoningMetrics;
+import com.cap.dis.model.LatencyMetrics;
+import com.cap.dis.model.PduLatencies;
+import com.cap.dis.model.PduRates;
+import com.cap.dis.model.PduTypeMetrics;
+import com.cap.dis.model.PipelineStageMetrics;
+import com.cap.dis.model.RateMetrics;
 import com.cap.dis.model.RealTimeMetrics;
+import com.cap.dis.model.SpillJournalMetrics;
+import com.cap.dis.model.TalkerMetrics;
+import com.cap.dis.model.TopTalkersMetrics;
+import com.cap.dis.model.StageTimingMetrics;
 import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.MetricsStreamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +22,10 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -25,6 +41,9 @@ class InternalMetricsControllerTest {
     @MockBean
     private DisMetricsTracker metricsTracker;
 
+    @MockBean
+    private MetricsStreamService metricsStreamService;
+
     @Autowired
     private ObjectMapper objectMapper; // For comparing JSON objects if needed
 
@@ -41,7 +60,7 @@ class InternalMetricsControllerTest {
             20L,          // collisionPdusInLastSixtySeconds
             20L           // detonationPdusInLastSixtySeconds
         );
-        when(metricsTracker.getMetrics()).thenReturn(expectedMetrics);
+        when(metricsTracker.getLatestSnapshot()).thenReturn(expectedMetrics);
 
         // Act
         ResultActions resultActions = mockMvc.perform(get("/internal/metrics/realtime"));
@@ -57,4 +76,134 @@ class InternalMetricsControllerTest {
                      .andExpect(jsonPath("$.collisionPdusInLastSixtySeconds", is(expectedMetrics.getCollisionPdusInLastSixtySeconds()), Long.class))
                      .andExpect(jsonPath("$.detonationPdusInLastSixtySeconds", is(expectedMetrics.getDetonationPdusInLastSixtySeconds()), Long.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPipelineMetrics_shouldReturnStageMetricsFromTracker() throws Exception {
+        when(metricsTracker.getPipelineMetrics()).thenReturn(List.of(
+            new PipelineStageMetrics("udp-receiver-0", "receive", 12L, 4096L, 1000L, 3L),
+            new PipelineStageMetrics("udp-receiver-0", "decode", 5L, 4096L, 988L, 40L)
+        ));
+
+        mockMvc.perform(get("/internal/metrics/pipeline"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].stage", is("receive")))
+               .andExpect(jsonPath("$[0].occupancy", is(12)))
+               .andExpect(jsonPath("$[0].stalls", is(3)))
+               .andExpect(jsonPath("$[1].pipeline", is("udp-receiver-0")))
+               .andExpect(jsonPath("$[1].processed", is(988)));
+    }
+
+    @Test
+    void getSheddingMetrics_shouldReturnShedCountsByPduType() throws Exception {
+        when(metricsTracker.getShedCounts()).thenReturn(Map.of(1, 250L, 20, 3L));
+
+        mockMvc.perform(get("/internal/metrics/shedding"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.1", is(250)))
+               .andExpect(jsonPath("$.20", is(3)));
+    }
+
+    @Test
+    void streamRealTimeDisMetrics_shouldOpenAnEventStream() throws Exception {
+        when(metricsStreamService.subscribe()).thenReturn(new SseEmitter(0L));
+
+        mockMvc.perform(get("/internal/metrics/realtime/stream").accept(MediaType.TEXT_EVENT_STREAM))
+               .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void getTopTalkers_shouldReturnHeaviestSendersWithTheRequestedLimit() throws Exception {
+        TalkerMetrics exercise = new TalkerMetrics("3", 6000L, 0L, 100.0, 0.8);
+        TalkerMetrics simulator = new TalkerMetrics("1:2", 4500L, 12L, 75.0, 0.6);
+        when(metricsTracker.getTopTalkers(1)).thenReturn(new TopTalkersMetrics(1_700_000_000_000L, 60_000L, true, 7500L,
+                List.of(exercise), List.of(simulator), List.of(), List.of()));
+
+        mockMvc.perform(get("/internal/metrics/top-talkers").param("limit", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.totalPdus", is(7500)))
+               .andExpect(jsonPath("$.exercises[0].talker", is("3")))
+               .andExpect(jsonPath("$.siteApplications[0].ratePerSecond", is(75.0)))
+               .andExpect(jsonPath("$.siteApplications[0].maxOvercount", is(12)));
+    }
+
+    @Test
+    void getSpillJournalMetrics_shouldReturnJournalStateOrNotFound() throws Exception {
+        when(metricsTracker.getSpillJournalMetrics()).thenReturn(null);
+        mockMvc.perform(get("/internal/metrics/spill")).andExpect(status().isNotFound());
+
+        when(metricsTracker.getSpillJournalMetrics()).thenReturn(
+            new SpillJournalMetrics("spill", 2, 134217728L, 1500L, 4000L, 2500L, 3L, 128, 4L, 4096));
+        mockMvc.perform(get("/internal/metrics/spill"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.pendingRecords", is(1500)))
+               .andExpect(jsonPath("$.replayedRecords", is(2500)))
+               .andExpect(jsonPath("$.segments", is(2)));
+    }
+
+    @Test
+    void getDeadReckoningMetrics_shouldReturnSuppressionFromTracker() throws Exception {
+        when(metricsTracker.getDeadReckoningMetrics()).thenReturn(new DeadReckoningMetrics(1000L, 250L, 750L, 0.75));
+
+        mockMvc.perform(get("/internal/metrics/dead-reckoning"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.evaluated", is(1000)))
+               .andExpect(jsonPath("$.suppressed", is(750)))
+               .andExpect(jsonPath("$.suppressionRatio", is(0.75)));
+    }
+
+    @Test
+    void getPduTypeMetrics_shouldReturnCountsKeyedByPduType() throws Exception {
+        when(metricsTracker.getPduTypeMetrics()).thenReturn(Map.of(
+            1, new PduTypeMetrics("Entity State", 1200L, 50000L),
+            26, new PduTypeMetrics("Signal", 30L, 900L)));
+
+        mockMvc.perform(get("/internal/metrics/pdu-types"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.1.name", is("Entity State")))
+               .andExpect(jsonPath("$.1.pdusInLastSixtySeconds", is(1200)))
+               .andExpect(jsonPath("$.26.name", is("Signal")))
+               .andExpect(jsonPath("$.26.pdusSinceStart", is(900)));
+    }
+
+    @Test
+    void getRates_shouldReturnWindowsAndEwmasOverallAndPerPduType() throws Exception {
+        RateMetrics total = new RateMetrics("All PDUs", 90000L, 120.0, 110.0, 100.0, 95.0, 90.0, 101.0, 96.0, 91.0);
+        RateMetrics entityState = new RateMetrics("Entity State", 80000L, 100.0, 100.0, 90.0, 85.0, 80.0, 91.0, 86.0, 81.0);
+        when(metricsTracker.getRates()).thenReturn(new PduRates(total, Map.of(1, entityState)));
+
+        mockMvc.perform(get("/internal/metrics/rates"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total.ratePerSecond1s", is(120.0)))
+               .andExpect(jsonPath("$.total.ewmaPerSecond15m", is(91.0)))
+               .andExpect(jsonPath("$.pduTypes.1.name", is("Entity State")))
+               .andExpect(jsonPath("$.pduTypes.1.ratePerSecond5m", is(85.0)));
+    }
+
+    @Test
+    void getStageTimings_shouldReturnEveryStage() throws Exception {
+        when(metricsTracker.getStageTimings()).thenReturn(List.of(
+                new StageTimingMetrics("unmarshal", 50L, 12.5, 1250.0, 0.75, 250.0, 200L, 900L, 1200L),
+                new StageTimingMetrics("kafka-enqueue", 50L, 4.2, 420.0, 0.25, 84.0, 80L, 150L, 300L)));
+
+        mockMvc.perform(get("/internal/metrics/stages"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].stage", is("unmarshal")))
+               .andExpect(jsonPath("$[0].shareOfTotal", is(0.75)))
+               .andExpect(jsonPath("$[1].estimatedTotalMillis", is(420.0)))
+               .andExpect(jsonPath("$[1].p99Micros", is(150)));
+    }
+
+    @Test
+    void getLatencies_shouldReturnPercentilesOverallAndPerPduType() throws Exception {
+        LatencyMetrics total = new LatencyMetrics("All PDUs", 1000L, 800L, 1500L, 4000L, 9000L, 12000L, 950.5);
+        LatencyMetrics fire = new LatencyMetrics("Fire", 10L, 700L, 900L, 1000L, 1000L, 1000L, 750.0);
+        when(metricsTracker.getLatencies()).thenReturn(new PduLatencies(total, Map.of(2, fire)));
+
+        mockMvc.perform(get("/internal/metrics/latency"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total.p99Micros", is(4000)))
+               .andExpect(jsonPath("$.total.maxMicros", is(12000)))
+               .andExpect(jsonPath("$.pduTypes.2.name", is("Fire")))
+               .andExpect(jsonPath("$.pduTypes.2.p50Micros", is(700)));
+    }
+}
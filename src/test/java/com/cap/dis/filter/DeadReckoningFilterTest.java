@@ -0,0 +1,172 @@
+package com.cap.dis.filter;
+
+import com.cap.dis.service.DisMetricsTracker;
+import edu.nps.moves.dis.EntityStatePdu;
+import edu.nps.moves.dis.FirePdu;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadReckoningFilterTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private DisMetricsTracker metricsTracker;
+    private DeadReckoningFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        metricsTracker = new DisMetricsTracker();
+        filter = new DeadReckoningFilter(metricsTracker);
+    }
+
+    private static EntityStatePdu entityState(int entity, int algorithm) {
+        EntityStatePdu pdu = new EntityStatePdu();
+        pdu.setProtocolVersion((short) 7);
+        pdu.getEntityID().setSite(1);
+        pdu.getEntityID().setApplication(2);
+        pdu.getEntityID().setEntity(entity);
+        pdu.getDeadReckoningParameters().setDeadReckoningAlgorithm((short) algorithm);
+        return pdu;
+    }
+
+    private static ByteBuffer bytes(EntityStatePdu pdu) {
+        return ByteBuffer.wrap(pdu.marshal());
+    }
+
+    @Test
+    void firstStateOfAnEntity_isPublished() {
+        assertTrue(filter.shouldPublish(bytes(entityState(1, 2)), 0, T0));
+        assertEquals(1, filter.getTrackedEntities());
+    }
+
+    @Test
+    void stateOnTheDeadReckonedTrack_isSuppressedUntilTheHeartbeat() {
+        EntityStatePdu pdu = entityState(1, 2); // FPW, 10 m/s along X
+        pdu.getEntityLinearVelocity().setX(10f);
+        assertTrue(filter.shouldPublish(bytes(pdu), 0, T0));
+
+        pdu.getEntityLocation().setX(20.5); // predicted 20 m after 2 s
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 2000));
+
+        pdu.getEntityLocation().setX(50.0); // predicted 50 m, but the heartbeat is due
+        assertTrue(filter.shouldPublish(bytes(pdu), 0, T0 + 5000));
+
+        assertEquals(3, metricsTracker.getDeadReckoningMetrics().getEvaluated());
+        assertEquals(1, metricsTracker.getDeadReckoningMetrics().getSuppressed());
+    }
+
+    @Test
+    void positionErrorAboveThreshold_isPublished() {
+        EntityStatePdu pdu = entityState(1, 2);
+        pdu.getEntityLinearVelocity().setX(10f);
+        filter.shouldPublish(bytes(pdu), 0, T0);
+
+        pdu.getEntityLocation().setX(11.5); // predicted 10 m after 1 s
+        assertTrue(filter.shouldPublish(bytes(pdu), 0, T0 + 1000));
+        // ... and the new state becomes the reference
+        pdu.getEntityLocation().setX(21.5);
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 2000));
+    }
+
+    @Test
+    void staticEntity_onlyPublishedWhenItMoves() {
+        EntityStatePdu pdu = entityState(1, 1);
+        pdu.getEntityLinearVelocity().setX(10f); // ignored by the static model
+        filter.shouldPublish(bytes(pdu), 0, T0);
+
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 1000));
+        pdu.getEntityLocation().setZ(2.0);
+        assertTrue(filter.shouldPublish(bytes(pdu), 0, T0 + 1100));
+    }
+
+    @Test
+    void accelerationModel_extrapolatesQuadratically() {
+        EntityStatePdu pdu = entityState(1, 5); // FVW
+        pdu.getDeadReckoningParameters().getEntityLinearAcceleration().setY(4f);
+        filter.shouldPublish(bytes(pdu), 0, T0);
+
+        pdu.getEntityLocation().setY(8.0); // 0.5 * 4 * 2^2
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 2000));
+
+        // FPW ignores acceleration, so the same state is off track
+        setUp();
+        EntityStatePdu linear = entityState(1, 2);
+        linear.getDeadReckoningParameters().getEntityLinearAcceleration().setY(4f);
+        filter.shouldPublish(bytes(linear), 0, T0);
+        linear.getEntityLocation().setY(8.0);
+        assertTrue(filter.shouldPublish(bytes(linear), 0, T0 + 2000));
+    }
+
+    @Test
+    void bodyAxisModel_rotatesVelocityByOrientation() {
+        EntityStatePdu pdu = entityState(1, 6); // FPB, heading 90 degrees: body X is world Y
+        pdu.getEntityLinearVelocity().setX(10f);
+        pdu.getEntityOrientation().setPsi((float) (Math.PI / 2));
+        filter.shouldPublish(bytes(pdu), 0, T0);
+
+        pdu.getEntityLocation().setY(10.0);
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 1000));
+    }
+
+    @Test
+    void orientation_isComparedAgainstRotatedTrack() {
+        EntityStatePdu pdu = entityState(1, 3); // RPW, turning at 0.1 rad/s
+        pdu.getDeadReckoningParameters().getEntityAngularVelocity().setZ(0.1f);
+        filter.shouldPublish(bytes(pdu), 0, T0);
+
+        pdu.getEntityOrientation().setPsi(0.2f);
+        assertFalse(filter.shouldPublish(bytes(pdu), 0, T0 + 2000));
+        pdu.getEntityOrientation().setPsi(0.5f); // predicted 0.3 rad, off by more than 3 degrees
+        assertTrue(filter.shouldPublish(bytes(pdu), 0, T0 + 3000));
+    }
+
+    @Test
+    void algorithmChange_isPublished() {
+        filter.shouldPublish(bytes(entityState(1, 2)), 0, T0);
+        assertTrue(filter.shouldPublish(bytes(entityState(1, 4)), 0, T0 + 100));
+    }
+
+    @Test
+    void entitiesAreTrackedSeparately() {
+        filter.shouldPublish(bytes(entityState(1, 1)), 0, T0);
+        assertTrue(filter.shouldPublish(bytes(entityState(2, 1)), 0, T0 + 100));
+        assertFalse(filter.shouldPublish(bytes(entityState(1, 1)), 0, T0 + 200));
+        assertEquals(2, filter.getTrackedEntities());
+    }
+
+    @Test
+    void sameEntityIdInTwoExercises_isTrackedSeparately() {
+        EntityStatePdu first = entityState(1, 1);
+        first.setExerciseID((short) 1);
+        EntityStatePdu second = entityState(1, 1);
+        second.setExerciseID((short) 2);
+        second.getEntityLocation().setX(5000.0);
+
+        filter.shouldPublish(bytes(first), 0, T0);
+        assertTrue(filter.shouldPublish(bytes(second), 0, T0 + 100));
+        assertFalse(filter.shouldPublish(bytes(first), 0, T0 + 200));
+        assertFalse(filter.shouldPublish(bytes(second), 0, T0 + 300));
+        assertEquals(2, filter.getTrackedEntities());
+    }
+
+    @Test
+    void otherPduTypes_areAlwaysPublishedAndNotCounted() {
+        FirePdu fire = new FirePdu();
+        fire.setProtocolVersion((short) 7);
+        ByteBuffer buffer = ByteBuffer.wrap(fire.marshal());
+        assertTrue(filter.shouldPublish(buffer, 0, T0));
+        assertTrue(filter.shouldPublish(buffer, 0, T0 + 1));
+        assertEquals(0, metricsTracker.getDeadReckoningMetrics().getEvaluated());
+    }
+
+    @Test
+    void staleTracks_areEvicted() {
+        filter.shouldPublish(bytes(entityState(1, 1)), 0, 0L);
+        filter.evictStaleTracks();
+        assertEquals(0, filter.getTrackedEntities());
+    }
+}
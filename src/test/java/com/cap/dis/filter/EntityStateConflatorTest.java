@@ -0,0 +1,110 @@
+package com.cap.dis.filter;
+
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.service.KafkaProducerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntityStateConflatorTest {
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    private EntityStateConflator conflator;
+
+    @BeforeEach
+    void setUp() {
+        conflator = new EntityStateConflator(kafkaProducerService);
+        conflator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        conflator.stop();
+    }
+
+    @Test
+    void offer_publishesOnlyTheNewestStatePerEntityAtTheEndOfTheWindow() {
+        assertTrue(conflator.offer(1, 1L, "dis.es", "0:0:1", "{\"x\":1}", 100L));
+        assertTrue(conflator.offer(1, 1L, "dis.es", "0:0:1", "{\"x\":2}", 200L));
+        assertTrue(conflator.offer(1, 2L, "dis.es", "0:0:2", new byte[]{7}, 300L));
+
+        verify(kafkaProducerService, timeout(2000)).sendMessage(1, 1L, "dis.es", "0:0:1", "{\"x\":2}", 200L);
+        verify(kafkaProducerService, timeout(2000)).sendMessage(eq(1), eq(2L), eq("dis.es"), eq("0:0:2"), aryEq(new byte[]{7}), eq(300L));
+        verify(kafkaProducerService, never()).sendMessage(eq(1), eq(1L), eq("dis.es"), eq("0:0:1"), eq("{\"x\":1}"), anyLong());
+        assertEquals(3, conflator.getOffered());
+        assertEquals(1, conflator.getConflated());
+    }
+
+    @Test
+    void offer_declinesOtherPduTypesAndDatagramsWithoutEntity() {
+        assertFalse(conflator.offer(2, 1L, null, null, "fire", 0L));
+        assertFalse(conflator.offer(1, PduBytes.NO_ENTITY, null, null, "short", 0L));
+        assertEquals(0, conflator.getPendingEntities());
+    }
+
+    @Test
+    void stop_flushesWhatIsStillInTheWindow() {
+        EntityStateConflator slow = new EntityStateConflator(kafkaProducerService);
+        // Window far longer than the test; only the shutdown flush can publish
+        setField(slow, "windowMs", 60_000L);
+        slow.start();
+        slow.offer(1, 3L, null, "0:0:3", "{}", 0L);
+        verify(kafkaProducerService, never()).sendMessage(anyInt(), anyLong(), any(), any(), anyString(), anyLong());
+
+        slow.stop();
+
+        verify(kafkaProducerService).sendMessage(1, 3L, null, "0:0:3", "{}", 0L);
+        assertEquals(0, slow.getPendingEntities());
+    }
+
+    @Test
+    void offer_fromManyThreads_keepsTheNewestStateOfEveryEntityAcrossShards() throws Exception {
+        EntityStateConflator sharded = new EntityStateConflator(kafkaProducerService);
+        setField(sharded, "windowMs", 60_000L);
+        setField(sharded, "shardCount", 4);
+        sharded.start();
+        Thread[] workers = new Thread[4];
+        for (int w = 0; w < workers.length; w++) {
+            int worker = w;
+            workers[w] = new Thread(() -> {
+                for (long entity = worker * 250L; entity < (worker + 1) * 250L; entity++) {
+                    sharded.offer(1, entity, null, "key", "old", 0L);
+                    sharded.offer(1, entity, null, "key", "new", 0L);
+                }
+            });
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(1000, sharded.getPendingEntities());
+        assertEquals(2000, sharded.getOffered());
+        assertEquals(1000, sharded.getConflated());
+        sharded.stop();
+
+        verify(kafkaProducerService, times(1000)).sendMessage(eq(1), anyLong(), isNull(), eq("key"), eq("new"), eq(0L));
+        verify(kafkaProducerService, never()).sendMessage(eq(1), anyLong(), isNull(), eq("key"), eq("old"), eq(0L));
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            var field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.cap.dis.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestByEntityMapTest {
+
+    private static Map<Long, Object> contents(LatestByEntityMap map) {
+        Map<Long, Object> entries = new HashMap<>();
+        map.forEach((entityId, topic, key, message, receivedNanos) -> entries.put(entityId, message));
+        return entries;
+    }
+
+    @Test
+    void put_keepsOnlyTheNewestRecordPerEntity() {
+        LatestByEntityMap map = new LatestByEntityMap(16);
+
+        assertFalse(map.put(1L, "t", "0:0:1", "a", 10L));
+        assertFalse(map.put(2L, "t", "0:0:2", "b", 20L));
+        assertTrue(map.put(1L, "u", "0:0:1", "c", 30L));
+
+        assertEquals(2, map.size());
+        assertEquals(Map.of(1L, "c", 2L, "b"), contents(map));
+        List<String> topics = new ArrayList<>();
+        List<Long> received = new ArrayList<>();
+        map.forEach((entityId, topic, key, message, receivedNanos) -> {
+            topics.add(topic);
+            received.add(receivedNanos);
+        });
+        assertEquals(List.of("u", "t"), topics);
+        assertEquals(List.of(30L, 20L), received);
+    }
+
+    @Test
+    void put_growsPastTheExpectedEntitiesAndKeepsEveryEntry() {
+        LatestByEntityMap map = new LatestByEntityMap(8);
+        int initialCapacity = map.capacity();
+        for (long site = 0; site < 1000; site++) {
+            map.put(site << 32 | 7, null, null, site, 0L); // entities differing only in the high bits
+        }
+
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() > initialCapacity);
+        Map<Long, Object> entries = contents(map);
+        for (long site = 0; site < 1000; site++) {
+            assertEquals(site, entries.get(site << 32 | 7));
+        }
+    }
+
+    @Test
+    void clear_emptiesTheMapAndKeepsItsCapacity() {
+        LatestByEntityMap map = new LatestByEntityMap(8);
+        for (long entity = 0; entity < 100; entity++) {
+            map.put(entity, null, null, "x", 0L);
+        }
+        int capacity = map.capacity();
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(capacity, map.capacity());
+        assertTrue(contents(map).isEmpty());
+        assertFalse(map.put(5L, null, null, "y", 0L), "Cleared entries must not count as replaced");
+    }
+}
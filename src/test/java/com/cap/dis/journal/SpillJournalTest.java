@@ -0,0 +1,124 @@
+package com.cap.dis.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SpillJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static long segmentFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(".spill")).count();
+        }
+    }
+
+    @Test
+    void appendAndRead_roundTripsBothValueKinds() {
+        SpillJournal journal = new SpillJournal(directory, 4096);
+        journal.append(1, "dis-pdus", "18:23:1001", "{\"type\":\"EntityStatePdu\"}");
+        journal.append(-1, "dis-raw", null, new byte[]{1, 2, 3});
+
+        SpillJournal.Batch batch = journal.read(10);
+
+        assertEquals(2, batch.records().size());
+        SpilledRecord first = batch.records().get(0);
+        assertEquals(1, first.pduType());
+        assertEquals("dis-pdus", first.topic());
+        assertEquals("18:23:1001", first.key());
+        assertEquals("{\"type\":\"EntityStatePdu\"}", first.value());
+        SpilledRecord second = batch.records().get(1);
+        assertEquals(-1, second.pduType());
+        assertNull(second.key());
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) second.value());
+        assertEquals(2, journal.getPendingRecords(), "read must not consume");
+    }
+
+    @Test
+    void commit_rollsThroughSegmentsAndDeletesReplayedOnes() throws Exception {
+        SpillJournal journal = new SpillJournal(directory, 256);
+        for (int i = 0; i < 40; i++) {
+            journal.append(2, "dis-pdus", null, "record-" + i);
+        }
+        assertTrue(segmentFiles(directory) > 1);
+
+        List<String> replayed = new ArrayList<>();
+        while (!journal.isEmpty()) {
+            SpillJournal.Batch batch = journal.read(7);
+            batch.records().forEach(r -> replayed.add((String) r.value()));
+            journal.commit(batch);
+        }
+
+        assertEquals(40, replayed.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals("record-" + i, replayed.get(i));
+        }
+        assertEquals(1, segmentFiles(directory), "only the segment still being written remains");
+        assertEquals(40, journal.getMetrics().getReplayedRecords());
+    }
+
+    @Test
+    void commit_unmapsReplayedSegments() throws Exception {
+        Path maps = Path.of("/proc/self/maps");
+        assumeTrue(Files.isReadable(maps), "needs /proc/self/maps");
+        SpillJournal journal = new SpillJournal(directory, 256);
+        for (int i = 0; i < 40; i++) {
+            journal.append(2, "dis-pdus", null, "record-" + i);
+        }
+        while (!journal.isEmpty()) {
+            journal.commit(journal.read(7));
+        }
+
+        String segmentPrefix = directory.toRealPath().toString();
+        long mappedSegments = Files.readAllLines(maps).stream()
+                .filter(line -> line.contains(segmentPrefix) && line.contains(".spill"))
+                .count();
+        assertEquals(1, mappedSegments, "only the segment still being written stays mapped");
+    }
+
+    @Test
+    void reopen_resumesFromCommittedPosition() {
+        SpillJournal journal = new SpillJournal(directory, 256);
+        for (int i = 0; i < 20; i++) {
+            journal.append(3, "dis-pdus", "k", ("payload-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        journal.commit(journal.read(5));
+        journal.read(3); // read but never acknowledged
+        journal.close();
+
+        SpillJournal reopened = new SpillJournal(directory, 256);
+
+        assertEquals(15, reopened.getPendingRecords());
+        SpillJournal.Batch batch = reopened.read(100);
+        assertEquals(15, batch.records().size());
+        assertArrayEquals("payload-5".getBytes(StandardCharsets.UTF_8), (byte[]) batch.records().get(0).value());
+        reopened.append(3, "dis-pdus", "k", "payload-20".getBytes(StandardCharsets.UTF_8));
+        assertEquals(16, reopened.read(100).records().size());
+    }
+
+    @Test
+    void append_rejectsRecordsLargerThanASegment() {
+        SpillJournal journal = new SpillJournal(directory, 64);
+        assertThrows(IllegalArgumentException.class, () -> journal.append(1, "dis-pdus", null, new byte[64]));
+    }
+
+    @Test
+    void newJournal_createsNothingUntilFirstAppend() {
+        Path missing = directory.resolve("not-yet");
+        SpillJournal journal = new SpillJournal(missing, 1024);
+
+        assertTrue(journal.isEmpty());
+        assertFalse(Files.exists(missing));
+    }
+}
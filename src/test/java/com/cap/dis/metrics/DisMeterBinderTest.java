@@ -0,0 +1,67 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.service.DisMetricsTracker;
+import com.cap.dis.service.KafkaProducerService;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DisMeterBinderTest {
+
+    private DisMetricsTracker metricsTracker;
+    private KafkaProducerService kafkaProducerService;
+    private SimpleMeterRegistry registry;
+    private DisMeterBinder binder;
+
+    @BeforeEach
+    void setUp() {
+        metricsTracker = new DisMetricsTracker();
+        kafkaProducerService = mock(KafkaProducerService.class);
+        registry = new SimpleMeterRegistry();
+        binder = new DisMeterBinder(metricsTracker, kafkaProducerService);
+    }
+
+    @Test
+    void bindTo_readsKafkaAndOverallMetersFromTheTracker() {
+        when(kafkaProducerService.getInFlight()).thenReturn(7);
+        binder.bindTo(registry);
+
+        metricsTracker.kafkaSendCompleted(true);
+        metricsTracker.kafkaSendCompleted(true);
+        metricsTracker.kafkaSendCompleted(false);
+        metricsTracker.recordLatency(-1, 3_000_000);
+
+        assertEquals(2.0, registry.get("dis.kafka.sends").tag("result", "success").functionCounter().count());
+        assertEquals(1.0, registry.get("dis.kafka.sends").tag("result", "failure").functionCounter().count());
+        assertEquals(7.0, registry.get("dis.kafka.in.flight").gauge().value());
+        FunctionTimer latency = registry.get("dis.kafka.latency").tag("pdu_type", "all").functionTimer();
+        assertEquals(1.0, latency.count());
+        assertEquals(3.0, latency.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(5, registry.get("dis.stage.time").functionTimers().size());
+    }
+
+    @Test
+    void registerNewMeters_addsPduTypesAsTheyAppear() {
+        binder.bindTo(registry);
+        assertNull(registry.find("dis.pdus.received").functionCounter());
+
+        metricsTracker.pduTypeReceived(1);
+        metricsTracker.pduTypeReceived(1);
+        metricsTracker.pduShed(2);
+        binder.registerNewMeters();
+        binder.registerNewMeters(); // already bound series are left alone
+
+        assertEquals(2.0, registry.get("dis.pdus.received").tags("pdu_type", "1", "name", "Entity State")
+                .functionCounter().count());
+        assertEquals(1, registry.get("dis.pdus.received").functionCounters().size());
+        assertEquals(3, registry.get("dis.pdus.rate").tag("pdu_type", "1").gauges().size());
+        assertEquals(1.0, registry.get("dis.kafka.shed").tag("pdu_type", "2").functionCounter().count());
+    }
+}
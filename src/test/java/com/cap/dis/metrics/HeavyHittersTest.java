@@ -0,0 +1,86 @@
+package com.cap.dis.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    @Test
+    void countMinSketch_neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (long key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 5; i++) {
+                sketch.add(key);
+            }
+        }
+
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(sketch.estimate(key) >= key % 5 + 1, "Key " + key);
+        }
+        assertEquals(0, new CountMinSketch(4, 64).estimate(42));
+    }
+
+    @Test
+    void top_findsHeavyKeysAmongManyLightOnes() {
+        HeavyHitters hitters = new HeavyHitters(16, 4, 1024);
+        for (int round = 0; round < 1000; round++) {
+            hitters.offer(7, null);
+            hitters.offer(7, null);
+            hitters.offer(9, null);
+            hitters.offer(100 + round, null); // 1000 keys seen once each
+        }
+
+        List<HeavyHitters.HeavyHitter> top = hitters.top(2);
+
+        assertEquals(4000, hitters.getTotal());
+        assertEquals(2, top.size());
+        assertEquals(7, top.get(0).key());
+        assertEquals(9, top.get(1).key());
+        assertTrue(top.get(0).count() >= 2000);
+        assertTrue(top.get(0).count() - top.get(0).error() <= 2000, "The error bound covers the overcount");
+    }
+
+    @Test
+    void top_keepsTheSampleOfTrackedKeys() {
+        HeavyHitters hitters = new HeavyHitters(4, 2, 64);
+        hitters.offer(1, "first");
+        hitters.offer(1, "ignored while tracked");
+
+        HeavyHitters.HeavyHitter hitter = hitters.top(10).get(0);
+
+        assertEquals(2, hitter.count());
+        assertEquals(0, hitter.error());
+        assertEquals("first", hitter.sample());
+    }
+
+    @Test
+    void merge_sumsPartsAndBoundsKeysAPartDidNotTrack() {
+        HeavyHitters left = new HeavyHitters(2, 4, 256);
+        HeavyHitters right = new HeavyHitters(2, 4, 256);
+        for (int i = 0; i < 50; i++) {
+            left.offer(1, "one");
+            right.offer(1, null);
+        }
+        for (int i = 0; i < 30; i++) {
+            left.offer(2, null);
+        }
+        for (int i = 0; i < 5; i++) {
+            right.offer(3, null); // right is full: key 2 may have occurred up to 5 times there
+        }
+
+        HeavyHitters merged = HeavyHitters.merge(List.of(left, right));
+        List<HeavyHitters.HeavyHitter> top = merged.top(10);
+
+        assertEquals(135, merged.getTotal());
+        assertEquals(2, top.size(), "Merged summary keeps its capacity");
+        assertEquals(1, top.get(0).key());
+        assertEquals(100, top.get(0).count());
+        assertEquals("one", top.get(0).sample());
+        assertEquals(2, top.get(1).key());
+        assertEquals(30, top.get(1).count(), "The sketch tightens the untracked bound away");
+        assertTrue(top.get(1).error() <= 5);
+    }
+}
@@ -0,0 +1,91 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.model.LatencyMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverTheLongRangeWithBoundedRelativeError() {
+        long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous, "Buckets must grow with the value");
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(highest >= value, value + " must not exceed its bucket");
+            assertTrue(highest - value <= value / 16, value + " must be within 1/16 of its bucket bound");
+            previous = bucket;
+        }
+        assertEquals(959, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshot_reportsPercentilesAndMaxInMicros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L); // 1 .. 1000 µs
+        }
+
+        LatencyMetrics metrics = histogram.snapshot("Entity State");
+
+        assertEquals(1000, metrics.getCount());
+        assertEquals(500, metrics.getP50Micros(), 500 / 16);
+        assertEquals(900, metrics.getP90Micros(), 900 / 16);
+        assertEquals(990, metrics.getP99Micros(), 990 / 16);
+        assertEquals(999, metrics.getP999Micros(), 999 / 16);
+        assertEquals(1000, metrics.getMaxMicros());
+        assertEquals(500.5, metrics.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    void percentilesNeverExceedTheRecordedMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+
+        assertEquals(1_000_001, histogram.valueAtQuantile(0.5));
+        assertEquals(1_000, histogram.snapshot(null).getP999Micros());
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyMetrics metrics = new LatencyHistogram().snapshot("All PDUs");
+
+        assertEquals(0, metrics.getCount());
+        assertEquals(0, metrics.getP99Micros());
+        assertEquals(0.0, metrics.getMeanMicros());
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.valueAtQuantile(1.0));
+    }
+
+    @Test
+    void concurrentRecording_keepsCountSumAndMaxAcrossThreads() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] callbacks = new Thread[12];
+        for (int t = 0; t < callbacks.length; t++) {
+            long peak = (t + 1) * 1_000_000L;
+            callbacks[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i == 5_000 ? peak : 1_000);
+                }
+            });
+            callbacks[t].start();
+        }
+        for (Thread callback : callbacks) {
+            callback.join();
+        }
+
+        assertEquals(120_000, histogram.getCount());
+        assertEquals(12 * (9_999L * 1_000) + 78_000_000L, histogram.getSum());
+        assertEquals(12_000_000, histogram.getMax());
+    }
+}
@@ -0,0 +1,99 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.model.RateMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateMeterTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    // 100 events per second for the given number of seconds starting at T0
+    private static void markSteady(RateMeter meter, int seconds) {
+        for (int second = 0; second < seconds; second++) {
+            for (int i = 0; i < 100; i++) {
+                meter.mark(T0 + second * 1000L + i);
+            }
+        }
+    }
+
+    @Test
+    void snapshot_reportsEveryWindowFromCompletedBuckets() {
+        RateMeter meter = new RateMeter();
+        markSteady(meter, 900);
+        meter.mark(T0 + 900_000); // partial current second, left out of the rates
+
+        RateMetrics rates = meter.snapshot("Entity State", T0 + 900_500);
+
+        assertEquals("Entity State", rates.getName());
+        assertEquals(90_001, rates.getCount());
+        assertEquals(100.0, rates.getRatePerSecond1s());
+        assertEquals(100.0, rates.getRatePerSecond10s());
+        assertEquals(100.0, rates.getRatePerSecond1m());
+        assertEquals(100.0, rates.getRatePerSecond5m());
+        assertEquals(100.0, rates.getRatePerSecond15m());
+        assertEquals(60 * 100 + 1, meter.lastMinuteCount(T0 + 900_500), "Current second plus the 60 before it");
+    }
+
+    @Test
+    void lastMinuteCount_keepsTheWholeTrailingMinute() {
+        RateMeter meter = new RateMeter();
+        markSteady(meter, 60);
+        meter.mark(T0 + 60_000);
+
+        // Exactly 60 s after the first events nothing of the minute has dropped out yet
+        assertEquals(60 * 100 + 1, meter.lastMinuteCount(T0 + 60_000));
+        assertEquals(60 * 100 + 1, meter.lastMinuteCount(T0 + 60_999));
+        // One second later the first second has
+        assertEquals(59 * 100 + 1, meter.lastMinuteCount(T0 + 61_000));
+    }
+
+    @Test
+    void snapshot_showsABurstInShortWindowsFirst() {
+        RateMeter meter = new RateMeter();
+        for (int i = 0; i < 5000; i++) {
+            meter.mark(T0 + 59_000 + i / 10);
+        }
+
+        RateMetrics rates = meter.snapshot(null, T0 + 60_000);
+
+        assertEquals(5000.0, rates.getRatePerSecond1s());
+        assertEquals(500.0, rates.getRatePerSecond10s());
+        assertEquals(5000 / 60.0, rates.getRatePerSecond1m(), 1e-9);
+    }
+
+    @Test
+    void tick_convergesTheEwmasToASteadyRate() {
+        RateMeter meter = new RateMeter();
+        meter.tick(T0);
+        long now = T0;
+        for (int tick = 0; tick < 12 * 60; tick++) { // one hour of 5 s ticks at 200 events/s
+            for (int i = 0; i < 1000; i++) {
+                meter.mark(now + i);
+            }
+            now += 5000;
+            meter.tick(now);
+        }
+
+        RateMetrics rates = meter.snapshot(null, now);
+        assertEquals(200.0, rates.getEwmaPerSecond1m(), 0.01);
+        assertEquals(200.0, rates.getEwmaPerSecond5m(), 0.01);
+        assertEquals(200.0, rates.getEwmaPerSecond15m(), 0.5);
+    }
+
+    @Test
+    void ewma_decaysFasterOverShorterWindows() {
+        Ewma oneMinute = Ewma.overMinutes(1);
+        Ewma fifteenMinutes = Ewma.overMinutes(15);
+        oneMinute.update(1000, 5000);
+        fifteenMinutes.update(1000, 5000);
+        assertEquals(200.0, oneMinute.getRatePerSecond(), "First update seeds the average");
+
+        oneMinute.update(0, 60_000);
+        fifteenMinutes.update(0, 60_000);
+
+        assertEquals(200.0 / Math.E, oneMinute.getRatePerSecond(), 1e-9);
+        assertTrue(fifteenMinutes.getRatePerSecond() > 180.0);
+    }
+}
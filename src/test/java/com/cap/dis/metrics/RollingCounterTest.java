@@ -0,0 +1,86 @@
+package com.cap.dis.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingCounterTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void sum_countsEventsInsideTheWindow() {
+        RollingCounter counter = new RollingCounter(60);
+        counter.increment(T0);
+        counter.increment(T0 + 999);
+        counter.add(T0 + 30_000, 5);
+
+        assertEquals(7, counter.sum(T0 + 30_000));
+        assertEquals(7, counter.sum(T0 + 59_999));
+        assertEquals(5, counter.sum(T0 + 60_000), "The first second has left the window");
+        assertEquals(0, counter.sum(T0 + 90_000));
+    }
+
+    @Test
+    void sum_overShorterSpans() {
+        RollingCounter counter = new RollingCounter(60);
+        for (int second = 0; second < 60; second++) {
+            counter.add(T0 + second * 1000L, second + 1);
+        }
+        long now = T0 + 59_500;
+
+        assertEquals(60, counter.sum(now, 1));
+        assertEquals(60 + 59 + 58 + 57 + 56 + 55 + 54 + 53 + 52 + 51, counter.sum(now, 10));
+        assertEquals(60 * 61 / 2, counter.sum(now, 600), "Spans are capped at the window");
+    }
+
+    @Test
+    void increment_reusesBucketsOnceTheRingWrapsAround() {
+        RollingCounter counter = new RollingCounter(3);
+        counter.add(T0, 10);
+        counter.increment(T0 + 3000); // same bucket as T0, three seconds later
+
+        assertEquals(1, counter.sum(T0 + 3000));
+        assertEquals(1, counter.sum(T0 + 5999));
+        assertEquals(0, counter.sum(T0 + 6000));
+    }
+
+    @Test
+    void increment_fromManyThreadsWithinOneSecond() throws InterruptedException {
+        RollingCounter counter = new RollingCounter(60);
+        counter.increment(T0); // claim the bucket up front, the threads only add to it
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    counter.increment(T0 + 500);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(400_001, counter.sum(T0 + 500));
+    }
+
+    @Test
+    void sum_withWiderBuckets() {
+        RollingCounter counter = new RollingCounter(3, 10_000);
+        counter.add(T0, 1);
+        counter.add(T0 + 9_999, 2);
+        counter.add(T0 + 25_000, 4);
+
+        assertEquals(7, counter.sum(T0 + 29_999));
+        assertEquals(4, counter.sum(T0 + 29_999, 1));
+        assertEquals(4, counter.sum(T0 + 30_000), "The first bucket has left the window");
+    }
+
+    @Test
+    void constructor_rejectsEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingCounter(0));
+    }
+}
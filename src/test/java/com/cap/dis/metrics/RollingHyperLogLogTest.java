@@ -0,0 +1,53 @@
+package com.cap.dis.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingHyperLogLogTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void estimate_isWithinAFewPercentOfTheDistinctCount() {
+        RollingHyperLogLog sketch = new RollingHyperLogLog(6, 10_000, 10);
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (long entity = 0; entity < 20_000; entity++) {
+                sketch.add(T0, entity);
+            }
+        }
+
+        long estimate = sketch.estimate(T0, 6);
+
+        assertEquals(20_000, estimate, 20_000 * 0.1, "Duplicates do not count, error stays small");
+        assertEquals(0, new RollingHyperLogLog(6, 10_000, 10).estimate(T0, 6));
+    }
+
+    @Test
+    void estimate_smallCountsAreNearlyExact() {
+        RollingHyperLogLog sketch = new RollingHyperLogLog(6, 10_000, 10);
+        for (long entity = 1; entity <= 50; entity++) {
+            sketch.add(T0, entity << 16);
+        }
+
+        assertEquals(50, sketch.estimate(T0, 6), 2);
+    }
+
+    @Test
+    void estimate_onlyMergesBucketsInsideTheWindow() {
+        RollingHyperLogLog sketch = new RollingHyperLogLog(6, 10_000, 10);
+        for (long entity = 0; entity < 100; entity++) {
+            sketch.add(T0, entity);
+        }
+        for (long entity = 50; entity < 150; entity++) {
+            sketch.add(T0 + 30_000, entity);
+        }
+
+        assertEquals(150, sketch.estimate(T0 + 30_000, 6), 8);
+        assertEquals(100, sketch.estimate(T0 + 30_000, 1), 5, "Only the current bucket");
+        assertEquals(100, sketch.estimate(T0 + 60_000, 6), 5, "The first bucket has left the window");
+        // The ring wraps: the first bucket is reset before it is reused
+        sketch.add(T0 + 60_000, 1000);
+        assertEquals(1, sketch.estimate(T0 + 60_000, 1));
+    }
+}
@@ -0,0 +1,95 @@
+package com.cap.dis.metrics;
+
+import com.cap.dis.model.TopTalkersMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopTalkersTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    // Header plus primary entity ID: exercise, site, application, entity
+    private static ByteBuffer pdu(int exercise, int site, int application, int entity) {
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.put(1, (byte) exercise).put(2, (byte) 1);
+        buffer.putShort(12, (short) site).putShort(14, (short) application).putShort(16, (short) entity);
+        return buffer;
+    }
+
+    @Test
+    void snapshot_ranksEveryBreakdownOfTheCompletedWindow() throws Exception {
+        TopTalkers talkers = new TopTalkers(8, T0);
+        InetAddress loud = InetAddress.getByName("10.0.0.5");
+        InetAddress quiet = InetAddress.getByName("10.0.0.6");
+        for (int i = 0; i < 30; i++) {
+            talkers.record(pdu(3, 1, 2, i % 3), 0, loud);
+        }
+        for (int i = 0; i < 15; i++) {
+            talkers.record(pdu(4, 5, 6, 1), 0, quiet);
+        }
+        talkers.rotate(T0 + 10_000);
+        talkers.record(pdu(9, 9, 9, 9), 0, quiet); // next window, not reported yet
+
+        TopTalkersMetrics metrics = talkers.snapshot(2, T0 + 12_000);
+
+        assertTrue(metrics.isComplete());
+        assertEquals(T0, metrics.getWindowStartMs());
+        assertEquals(10_000, metrics.getWindowMillis());
+        assertEquals(45, metrics.getTotalPdus());
+        assertEquals("3", metrics.getExercises().get(0).getTalker());
+        assertEquals(30, metrics.getExercises().get(0).getPdus());
+        assertEquals(3.0, metrics.getExercises().get(0).getRatePerSecond());
+        assertEquals(2 / 3.0, metrics.getExercises().get(0).getShareOfTotal(), 1e-9);
+        assertEquals("1:2", metrics.getSiteApplications().get(0).getTalker());
+        assertEquals("5:6", metrics.getSiteApplications().get(1).getTalker());
+        assertEquals("10.0.0.5", metrics.getSourceAddresses().get(0).getTalker());
+        assertEquals("5:6:1", metrics.getEntities().get(0).getTalker(), "One entity at 15 beats three at 10");
+        assertEquals(2, metrics.getEntities().size());
+    }
+
+    @Test
+    void snapshot_reportsTheCurrentWindowUntilOneCompletes() {
+        TopTalkers talkers = new TopTalkers(8, T0);
+        talkers.record(pdu(1, 1, 1, 1), 0, null);
+        talkers.record(ByteBuffer.allocate(4), 0, null); // no header: not counted
+
+        TopTalkersMetrics metrics = talkers.snapshot(10, T0 + 500);
+
+        assertFalse(metrics.isComplete());
+        assertEquals(500, metrics.getWindowMillis());
+        assertEquals(1, metrics.getTotalPdus());
+        assertEquals(2.0, metrics.getExercises().get(0).getRatePerSecond());
+        assertTrue(metrics.getSourceAddresses().isEmpty());
+    }
+
+    @Test
+    void rotate_mergesTheStripesOfEveryWriterThread() throws Exception {
+        TopTalkers talkers = new TopTalkers(8, 4, T0);
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            int exercise = w + 1;
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 100 * exercise; i++) {
+                    talkers.record(pdu(exercise, 1, exercise, 1), 0, null);
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        talkers.rotate(T0 + 1_000);
+
+        TopTalkersMetrics metrics = talkers.snapshot(4, T0 + 1_000);
+
+        assertEquals(1000, metrics.getTotalPdus());
+        assertEquals("4", metrics.getExercises().get(0).getTalker());
+        assertEquals(400, metrics.getExercises().get(0).getPdus());
+        assertEquals("1", metrics.getExercises().get(3).getTalker());
+        assertEquals("1:4:1", metrics.getEntities().get(0).getTalker());
+    }
+}
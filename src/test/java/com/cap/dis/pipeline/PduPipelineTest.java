@@ -0,0 +1,152 @@
+package com.cap.dis.pipeline;
+
+import com.cap.dis.model.PipelineStageMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cap.dis.codec.PduBytes;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PduPipelineTest {
+
+    private PduPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void constructor_rejectsNonPowerOfTwoRing() {
+        assertThrows(IllegalArgumentException.class, () -> new PduPipeline("test", 100, 64, false));
+        // 2^21 slots of 2048 bytes is 2^32 bytes: int arithmetic would wrap to an empty block
+        assertThrows(IllegalArgumentException.class, () -> new PduPipeline("test", 1 << 21, 2048, false));
+    }
+
+    @Test
+    void stages_processEverySlotInOrderAcrossRingWraps() throws Exception {
+        int events = 10_000;
+        pipeline = new PduPipeline("test", 8, 64, true); // tiny ring forces many wraps and receive stalls
+        ConcurrentLinkedQueue<Integer> published = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(events);
+
+        pipeline.start(
+            event -> event.setJson("seq-" + event.getBuffer().getInt(0)),
+            event -> event.setJson(event.getJson() + "-json"),
+            event -> {
+                assertEquals("seq-" + event.getBuffer().getInt(0) + "-json", event.getJson());
+                published.add(event.getBuffer().getInt(0));
+                done.countDown();
+            });
+
+        for (int i = 0; i < events; i++) {
+            PduEvent event = pipeline.claim();
+            assertNull(event.getJson(), "Slots must be reset before they are reused");
+            event.getBuffer().putInt(i).flip();
+            pipeline.publish();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All events should reach the publish stage");
+        Integer expected = 0;
+        for (Integer seq : published) {
+            assertEquals(expected++, seq);
+        }
+
+        List<PipelineStageMetrics> metrics = pipeline.getStageMetrics();
+        assertEquals(List.of("receive", "decode", "serialize", "publish"),
+                metrics.stream().map(PipelineStageMetrics::getStage).toList());
+        metrics.forEach(m -> assertEquals(8, m.getCapacity()));
+        assertEquals(events, metrics.get(0).getProcessed());
+        assertTrue(metrics.get(0).getStalls() > 0, "Receive stage should have waited on the full ring");
+    }
+
+    @Test
+    void failingStage_doesNotStopThePipeline() throws Exception {
+        pipeline = new PduPipeline("test", 4, 16, false);
+        CountDownLatch done = new CountDownLatch(2);
+        pipeline.start(
+            event -> {
+                if (event.getBuffer().get(0) == 1) {
+                    throw new IllegalStateException("boom");
+                }
+            },
+            event -> { },
+            event -> done.countDown());
+
+        for (byte b = 1; b <= 2; b++) {
+            PduEvent event = pipeline.claim();
+            event.getBuffer().put(b).flip();
+            pipeline.publish();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slots_areViewsOfOneBlock() {
+        pipeline = new PduPipeline("test", 4, 32, false);
+        PduEvent event = pipeline.claim();
+        ByteBuffer buffer = event.getBuffer();
+
+        assertEquals(32, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertTrue(buffer.hasArray());
+    }
+
+    @Test
+    void shardedWorkers_keepEachEntityOnOneWorkerAndPublishInArrivalOrder() throws Exception {
+        int events = 20_000;
+        int entities = 50;
+        pipeline = new PduPipeline("test", 256, 32, false, 4, event -> PduBytes.primaryEntityId(event.getBuffer(), 0));
+        Map<Integer, String> decodeThreadByEntity = new ConcurrentHashMap<>();
+        Map<Integer, Integer> lastSeqByEntity = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(events);
+
+        pipeline.start(
+            event -> {
+                int entity = event.getBuffer().getShort(16);
+                String previous = decodeThreadByEntity.putIfAbsent(entity, Thread.currentThread().getName());
+                if (previous != null && !previous.equals(Thread.currentThread().getName())) {
+                    violations.add("entity " + entity + " decoded on " + previous + " and " + Thread.currentThread().getName());
+                }
+                event.setJson("decoded");
+            },
+            event -> assertEquals("decoded", event.getJson()),
+            event -> {
+                int entity = event.getBuffer().getShort(16);
+                int seq = event.getBuffer().getInt(24);
+                Integer last = lastSeqByEntity.put(entity, seq);
+                if (last != null && last > seq) {
+                    violations.add("entity " + entity + " published " + seq + " after " + last);
+                }
+                done.countDown();
+            });
+
+        for (int i = 0; i < events; i++) {
+            PduEvent event = pipeline.claim();
+            ByteBuffer buffer = event.getBuffer();
+            buffer.position(12);
+            buffer.putShort((short) 1).putShort((short) 3101).putShort((short) (i % entities)); // site/app/entity
+            buffer.position(24);
+            buffer.putInt(i).flip();
+            pipeline.publish();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All events should reach the publish stage");
+        assertTrue(violations.isEmpty(), violations::toString);
+        assertTrue(decodeThreadByEntity.values().stream().distinct().count() > 1, "Entities should spread over workers");
+        assertEquals(events, pipeline.getStageMetrics().get(3).getProcessed());
+    }
+}
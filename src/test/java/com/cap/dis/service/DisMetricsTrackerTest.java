@@ -1,9 +1,21 @@
 package com.cap.dis.service;
 
+import com.cap.dis.metrics.TimedStage;
+import com.cap.dis.model.ActiveEntityMetrics;
+import com.cap.dis.model.PduLatencies;
+import com.cap.dis.model.PduRates;
+import com.cap.dis.model.PduTypeMetrics;
 import com.cap.dis.model.RealTimeMetrics;
+import com.cap.dis.model.StageTimingMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 class DisMetricsTrackerTest {
@@ -143,4 +155,172 @@ class DisMetricsTrackerTest {
         assertEquals(1, metrics.getCollisionPdusInLastSixtySeconds(), "Collision PDU count should be 1");
         assertEquals(1, metrics.getDetonationPdusInLastSixtySeconds(), "Detonation PDU count should be 1");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPduShed_countsPerPduType() {
+        metricsTracker.pduShed(1);
+        metricsTracker.pduShed(1);
+        metricsTracker.pduShed(20);
+
+        assertEquals(2, metricsTracker.getShedCount(1));
+        assertEquals(Map.of(1, 2L, 20, 1L), metricsTracker.getShedCounts());
+    }
+
+    @Test
+    void testPduTypeReceived_countsEveryPduTypeByName() {
+        metricsTracker.pduTypeReceived(26); // Signal
+        metricsTracker.pduTypeReceived(26);
+        metricsTracker.pduTypeReceived(28); // IFF
+        metricsTracker.pduTypeReceived(1);
+
+        Map<Integer, PduTypeMetrics> types = metricsTracker.getPduTypeMetrics();
+
+        assertEquals(Set.of(1, 26, 28), types.keySet());
+        assertEquals(new PduTypeMetrics("Signal", 2, 2), types.get(26));
+        assertEquals(new PduTypeMetrics("IFF", 1, 1), types.get(28));
+        RealTimeMetrics metrics = metricsTracker.getMetrics();
+        assertEquals(4, metrics.getPdusInLastSixtySeconds());
+        assertEquals(1, metrics.getEntityStatePdusInLastSixtySeconds(), "Legacy fields read the same table");
+    }
+
+    @Test
+    void testGetRates_coversAllPdusAndEachPduType() {
+        metricsTracker.pduTypeReceived(1);
+        metricsTracker.pduTypeReceived(26);
+        metricsTracker.tickRates();
+
+        PduRates rates = metricsTracker.getRates();
+
+        assertEquals(2, rates.getTotal().getCount());
+        assertEquals(Set.of(1, 26), rates.getPduTypes().keySet());
+        assertEquals("Signal", rates.getPduTypes().get(26).getName());
+        assertEquals(1, rates.getPduTypes().get(26).getCount());
+    }
+
+    @Test
+    void testRecordLatency_overallAndPerPduType() {
+        metricsTracker.recordLatency(1, 2_000_000);
+        metricsTracker.recordLatency(1, 4_000_000);
+        metricsTracker.recordLatency(-1, 1_000_000); // error record, overall only
+
+        PduLatencies latencies = metricsTracker.getLatencies();
+
+        assertEquals(3, latencies.getTotal().getCount());
+        assertEquals(Set.of(1), latencies.getPduTypes().keySet());
+        assertEquals("Entity State", latencies.getPduTypes().get(1).getName());
+        assertEquals(4000, latencies.getPduTypes().get(1).getMaxMicros());
+    }
+
+    @Test
+    void testStageTiming_offByDefault() {
+        long start = metricsTracker.stageStart();
+        metricsTracker.stageEnd(TimedStage.UNMARSHAL, start);
+
+        assertEquals(DisMetricsTracker.NOT_SAMPLED, start);
+        assertEquals(0, metricsTracker.getStageTimings().get(TimedStage.UNMARSHAL.ordinal()).getSamples());
+    }
+
+    @Test
+    void testStageTiming_everyCallSampledAtRateOne() throws InterruptedException {
+        metricsTracker.setStageSampleRate(1);
+
+        long start = metricsTracker.stageStart();
+        Thread.sleep(2);
+        metricsTracker.stageEnd(TimedStage.SERIALIZE, start);
+        metricsTracker.stageEnd(TimedStage.SERIALIZE, metricsTracker.stageStart());
+
+        List<StageTimingMetrics> timings = metricsTracker.getStageTimings();
+        assertEquals(TimedStage.values().length, timings.size());
+        StageTimingMetrics serialize = timings.get(TimedStage.SERIALIZE.ordinal());
+        assertEquals("serialize", serialize.getStage());
+        assertEquals(2, serialize.getSamples());
+        assertTrue(serialize.getSampledMillis() >= 2);
+        assertEquals(serialize.getSampledMillis(), serialize.getEstimatedTotalMillis());
+        assertEquals(1.0, serialize.getShareOfTotal());
+        assertEquals(0, timings.get(TimedStage.SOCKET_WAIT.ordinal()).getSamples());
+    }
+
+    @Test
+    void testTopTalkers_offByDefault_countedUntilDisabled() {
+        ByteBuffer datagram = ByteBuffer.allocate(24);
+        datagram.put(1, (byte) 7);
+        assertNull(metricsTracker.getTopTalkers(5));
+
+        metricsTracker.setTopTalkerCapacity(64);
+        metricsTracker.talkerReceived(datagram, 0, null);
+
+        assertEquals("7", metricsTracker.getTopTalkers(5).getExercises().get(0).getTalker());
+
+        metricsTracker.setTopTalkerCapacity(0);
+        metricsTracker.talkerReceived(datagram, 0, null);
+        metricsTracker.rotateTopTalkers();
+        assertNull(metricsTracker.getTopTalkers(5));
+    }
+
+    @Test
+    void testEntitySeen_estimatesActiveEntitiesPerExerciseAndPduType() {
+        for (long entity = 1; entity <= 40; entity++) {
+            metricsTracker.entitySeen(1, 1, entity);
+            metricsTracker.entitySeen(1, 1, entity); // heartbeat of the same entity
+        }
+        metricsTracker.entitySeen(2, 1, 1); // same EntityID, other exercise
+        metricsTracker.entitySeen(1, 2, 7); // firing entity already seen as an Entity State
+        metricsTracker.entitySeen(1, 3, 5000); // munition of a Detonation, not a live entity
+
+        RealTimeMetrics metrics = metricsTracker.getMetrics();
+
+        assertEquals(41, metrics.getActiveEntitiesLastMinute(), 2);
+        assertEquals(metrics.getActiveEntitiesLastMinute(), metrics.getActiveEntitiesLastFiveMinutes());
+        assertEquals(Set.of(1, 2), metrics.getActiveEntitiesByExercise().keySet());
+        assertEquals(40, metrics.getActiveEntitiesByExercise().get(1).getLastMinute(), 2);
+        assertEquals(1, metrics.getActiveEntitiesByExercise().get(2).getLastMinute());
+        assertEquals(41, metrics.getActiveEntitiesByPduType().get(1).getLastMinute(), 2);
+        assertEquals(1, metrics.getActiveEntitiesByPduType().get(2).getLastFiveMinutes());
+        assertEquals(1, metrics.getActiveEntitiesByPduType().get(3).getLastMinute());
+    }
+
+    @Test
+    void testEntitySeen_onlyEntityStatesCountAsLiveEntities() {
+        metricsTracker.entitySeen(1, 2, 10); // Fire: shooter never sent an Entity State
+        metricsTracker.entitySeen(1, 24, 11); // Designator
+
+        RealTimeMetrics metrics = metricsTracker.getMetrics();
+
+        assertEquals(0, metrics.getActiveEntitiesLastMinute());
+        assertTrue(metrics.getActiveEntitiesByExercise().isEmpty());
+        assertEquals(Set.of(2, 24), metrics.getActiveEntitiesByPduType().keySet());
+    }
+
+    @Test
+    void testLatestSnapshot_onlyChangesWhenPublished() {
+        RealTimeMetrics first = metricsTracker.getLatestSnapshot();
+        metricsTracker.pduTypeReceived(1);
+
+        assertSame(first, metricsTracker.getLatestSnapshot(), "Reads between publications share one snapshot");
+        assertEquals(0, first.getEntityStatePdusInLastSixtySeconds());
+
+        metricsTracker.publishSnapshot();
+        RealTimeMetrics second = metricsTracker.getLatestSnapshot();
+        assertNotSame(first, second);
+        assertEquals(1, second.getEntityStatePdusInLastSixtySeconds());
+        assertThrows(UnsupportedOperationException.class, () -> second.getActiveEntitiesByExercise().clear());
+        for (Class<?> type : List.of(RealTimeMetrics.class, ActiveEntityMetrics.class)) {
+            assertTrue(Arrays.stream(type.getMethods()).noneMatch(method -> method.getName().startsWith("set")),
+                    type.getSimpleName() + " is shared by all readers and must have no setters");
+        }
+    }
+
+    @Test
+    void testPublishSnapshot_handsTheSnapshotToListeners() {
+        List<RealTimeMetrics> received = new ArrayList<>();
+        metricsTracker.registerSnapshotListener(snapshot -> {
+            throw new IllegalStateException("listener failure must not stop publication");
+        });
+        metricsTracker.registerSnapshotListener(received::add);
+
+        metricsTracker.publishSnapshot();
+
+        assertEquals(1, received.size());
+        assertSame(metricsTracker.getLatestSnapshot(), received.get(0));
+    }
+}
@@ -0,0 +1,183 @@
+package com.cap.dis.service;
+
+import com.cap.dis.journal.SpillJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaProducerServiceSpillTest {
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> byteArrayKafkaTemplate;
+
+    @Mock
+    private DisMetricsTracker metricsTracker;
+
+    @TempDir
+    Path spillDirectory;
+
+    private final List<String> delivered = new ArrayList<>();
+    private boolean brokerUp;
+
+    // Stand-in broker: acknowledges and records while up, fails every send while down
+    private CompletableFuture<SendResult<String, String>> broker(String message) {
+        if (!brokerUp) {
+            return CompletableFuture.failedFuture(new IllegalStateException("broker unreachable"));
+        }
+        delivered.add(message);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private KafkaProducerService newService() {
+        KafkaProducerService service = new KafkaProducerService(kafkaTemplate, byteArrayKafkaTemplate, metricsTracker);
+        ReflectionTestUtils.setField(service, "topic", "dis-pdus");
+        ReflectionTestUtils.setField(service, "spillEnabled", true);
+        ReflectionTestUtils.setField(service, "spillDirectory", spillDirectory.toString());
+        ReflectionTestUtils.setField(service, "spillSegmentSize", 4096);
+        ReflectionTestUtils.setField(service, "spillReplayRate", 250); // 50 records per 200 ms run
+        service.openSpillJournal();
+        return service;
+    }
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(kafkaTemplate.send(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> broker(invocation.getArgument(2)));
+    }
+
+    private void replayUntilEmpty(KafkaProducerService service) {
+        for (int run = 0; run < 1000 && !service.isSpillJournalEmpty(); run++) {
+            service.replaySpillJournal();
+        }
+    }
+
+    @Test
+    void brokerOutage_isSpilledAndReplayedLosslesslyInOrder() {
+        KafkaProducerService service = newService();
+        List<String> sent = new ArrayList<>();
+        brokerUp = true;
+        for (int i = 0; i < 300; i++) {
+            String message = "{\"seq\":" + i + "}";
+            sent.add(message);
+            if (i == 100) {
+                brokerUp = false; // outage in the middle of the stream
+            }
+            service.sendMessage(1, null, "1:1:" + (i % 7), message);
+        }
+        assertEquals(100, delivered.size());
+
+        service.replaySpillJournal(); // broker still down: nothing may be committed
+        assertEquals(200, ((SpillJournal) ReflectionTestUtils.getField(service, "spillJournal")).getPendingRecords());
+
+        brokerUp = true;
+        replayUntilEmpty(service);
+
+        assertEquals(sent, delivered);
+        verify(metricsTracker, times(1)).registerSpillJournal(any());
+        verify(metricsTracker, never()).pduShed(anyInt());
+    }
+
+    @Test
+    void replay_doesNotWaitForAcks_andCommitsWhenTheLastArrives() {
+        KafkaProducerService service = newService();
+        for (int i = 0; i < 10; i++) {
+            service.sendMessage(1, null, "1:1:1", "es-" + i);
+        }
+        List<CompletableFuture<SendResult<String, String>>> acks = new ArrayList<>();
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, String>> ack = new CompletableFuture<>();
+            acks.add(ack);
+            return ack;
+        });
+        SpillJournal journal = (SpillJournal) ReflectionTestUtils.getField(service, "spillJournal");
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), service::replaySpillJournal);
+        assertEquals(10, acks.size());
+        service.replaySpillJournal(); // a batch is still in flight: nothing sent twice
+        assertEquals(10, acks.size());
+
+        acks.subList(0, 9).forEach(ack -> ack.complete(null));
+        assertEquals(10, journal.getPendingRecords());
+        acks.get(9).complete(null);
+        assertEquals(0, journal.getPendingRecords());
+    }
+
+    @Test
+    void afterRecovery_liveRecordsBypassTheJournalWhileItDrains() {
+        KafkaProducerService service = newService();
+        for (int i = 0; i < 100; i++) {
+            service.sendMessage(1, null, "1:1:1", "spilled-" + i);
+        }
+        SpillJournal journal = (SpillJournal) ReflectionTestUtils.getField(service, "spillJournal");
+        assertEquals(100, journal.getPendingRecords());
+
+        brokerUp = true;
+        service.replaySpillJournal(); // first acknowledged batch shows the broker is back
+        service.sendMessage(1, null, "1:1:1", "live");
+
+        assertEquals("live", delivered.get(delivered.size() - 1));
+        assertEquals(50, journal.getPendingRecords());
+        replayUntilEmpty(service);
+        assertEquals(101, delivered.size());
+    }
+
+    @Test
+    void unspillableRecord_isShedInsteadOfFailingTheSender() {
+        KafkaProducerService service = newService();
+        String oversized = "x".repeat(5000); // larger than a 4096-byte segment
+
+        assertDoesNotThrow(() -> service.sendMessage(20, null, "1:1:1", oversized));
+        service.sendMessage(20, null, "1:1:1", "fits");
+
+        verify(metricsTracker, times(1)).pduShed(20);
+        assertEquals(1, ((SpillJournal) ReflectionTestUtils.getField(service, "spillJournal")).getPendingRecords());
+    }
+
+    @Test
+    void spilledRecords_surviveRestart() {
+        KafkaProducerService first = newService();
+        for (int i = 0; i < 25; i++) {
+            first.sendMessage(2, null, "1:1:1", "fire-" + i);
+        }
+        first.stop();
+
+        brokerUp = true;
+        KafkaProducerService restarted = newService();
+        replayUntilEmpty(restarted);
+
+        assertEquals(25, delivered.size());
+        assertEquals("fire-0", delivered.get(0));
+        assertEquals("fire-24", delivered.get(24));
+    }
+
+    @Test
+    void relativeSpillDirectory_isRejectedAtStartup() {
+        KafkaProducerService service = new KafkaProducerService(kafkaTemplate, byteArrayKafkaTemplate, metricsTracker);
+        ReflectionTestUtils.setField(service, "spillEnabled", true);
+        ReflectionTestUtils.setField(service, "spillDirectory", "spill");
+
+        assertThrows(IllegalArgumentException.class, service::openSpillJournal);
+    }
+}
@@ -3,6 +3,7 @@ package com.cap.dis.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -10,8 +11,11 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -22,6 +26,9 @@ class KafkaProducerServiceTest {
     @Mock
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    @Mock
+    private DisMetricsTracker metricsTracker;
+
     @InjectMocks
     private KafkaProducerService kafkaProducerService;
 
@@ -55,4 +62,176 @@ class KafkaProducerServiceTest {
         verify(kafkaTemplate, times(1)).send(testTopic, testMessage); // [cite: 176]
         // Add assertions for error logging if a Captor is used for logger [cite: 177]
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendMessage_bytesUseByteArrayTemplate() {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, byte[]> byteArrayKafkaTemplate = mock(KafkaTemplate.class);
+        KafkaProducerService service = new KafkaProducerService(kafkaTemplate, byteArrayKafkaTemplate, metricsTracker);
+        ReflectionTestUtils.setField(service, "topic", testTopic);
+        byte[] payload = testMessage.getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<SendResult<String, byte[]>> future = CompletableFuture.completedFuture(null);
+        when(byteArrayKafkaTemplate.send(testTopic, payload)).thenReturn(future);
+
+        service.sendMessage(payload);
+
+        verify(byteArrayKafkaTemplate, times(1)).send(testTopic, payload);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void sendMessage_recordsReceiveToAckLatencyOnlyForAcknowledgedTimedRecords() {
+        CompletableFuture<SendResult<String, String>> acked = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, String>> failed = new CompletableFuture<>();
+        when(kafkaTemplate.send(testTopic, "ok")).thenReturn(acked);
+        when(kafkaTemplate.send(testTopic, "lost")).thenReturn(failed);
+        long receivedNanos = System.nanoTime() - 5_000_000;
+
+        kafkaProducerService.sendMessage(1, null, null, "ok", receivedNanos);
+        kafkaProducerService.sendMessage(1, null, null, "lost", receivedNanos);
+        verify(metricsTracker, never()).recordLatency(anyInt(), anyLong());
+
+        acked.complete(null);
+        failed.completeExceptionally(new RuntimeException("Kafka send error"));
+
+        verify(metricsTracker, times(1)).recordLatency(eq(1), longThat(nanos -> nanos >= 5_000_000));
+    }
+
+    @Test
+    void sendMessage_withoutReceiveTimeIsNotTimed() {
+        when(kafkaTemplate.send(testTopic, testMessage)).thenReturn(CompletableFuture.completedFuture(null));
+
+        kafkaProducerService.sendMessage(1, null, null, testMessage);
+
+        verify(metricsTracker, never()).recordLatency(anyInt(), anyLong());
+    }
+
+    @Test
+    void sendMessage_withKey_sendsKeyedRecord() {
+        CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send(testTopic, "18:23:1001", testMessage)).thenReturn(future);
+
+        kafkaProducerService.sendMessage(1, null, "18:23:1001", testMessage);
+
+        verify(kafkaTemplate, times(1)).send(testTopic, "18:23:1001", testMessage);
+    }
+
+    @Test
+    void topicFor_resolvesExerciseThenTypeThenFamily() {
+        kafkaProducerService.setPduTypeRoutes(new String[]{"1:dis-entity-state", "2:dis-fire"});
+        kafkaProducerService.setFamilyRoutes(new String[]{"2:dis-warfare"});
+        kafkaProducerService.setExerciseOverrides(new String[]{"7:2:ex7-fire", "7:*:ex7", "9:1:ex9-entity-state"});
+
+        assertEquals("dis-entity-state", kafkaProducerService.topicFor(1, 1, 1));
+        assertEquals("dis-fire", kafkaProducerService.topicFor(1, 2, 2));
+        assertEquals("dis-warfare", kafkaProducerService.topicFor(1, 3, 2));
+        assertEquals(testTopic, kafkaProducerService.topicFor(1, 20, 5));
+        assertEquals("ex7-fire", kafkaProducerService.topicFor(7, 2, 2));
+        assertEquals("ex7", kafkaProducerService.topicFor(7, 1, 1));
+        assertEquals("ex9-entity-state", kafkaProducerService.topicFor(9, 1, 1));
+        assertEquals("dis-fire", kafkaProducerService.topicFor(9, 2, 2));
+    }
+
+    @Test
+    void setPduTypeRoutes_rejectsMalformedEntries() {
+        assertThrows(IllegalArgumentException.class, () -> kafkaProducerService.setPduTypeRoutes(new String[]{"dis-fire"}));
+        assertThrows(IllegalArgumentException.class, () -> kafkaProducerService.setPduTypeRoutes(new String[]{"256:dis-fire"}));
+    }
+
+    @Test
+    void sendMessage_toRoutedTopic() {
+        CompletableFuture<SendResult<String, String>> future = CompletableFuture.completedFuture(null);
+        when(kafkaTemplate.send("dis-fire", testMessage)).thenReturn(future);
+
+        kafkaProducerService.sendMessage(2, "dis-fire", null, testMessage);
+
+        verify(kafkaTemplate, times(1)).send("dis-fire", testMessage);
+    }
+
+    @Test
+    void sendMessage_overBudget_conflatesAndNeverDropsPerPolicy() {
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 1);
+        kafkaProducerService.setSheddingPolicies(new String[]{"1:conflate", "2:never-drop"});
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq(testTopic), anyString())).thenReturn(new CompletableFuture<>());
+        when(kafkaTemplate.send(testTopic, "es-1")).thenReturn(pending);
+
+        // Unkeyed records (kafka.key-strategy=none) conflate on the EntityID from the datagram
+        kafkaProducerService.sendMessage(1, 1L, null, null, "es-1", 0L);  // takes the only in-flight slot
+        kafkaProducerService.sendMessage(1, 2L, null, null, "es-2", 0L);  // queued
+        kafkaProducerService.sendMessage(1, 2L, null, null, "es-3", 0L);  // replaces es-2
+        kafkaProducerService.sendMessage(2, 2L, null, null, "fire", 0L);  // over budget but never dropped
+
+        verify(kafkaTemplate).send(testTopic, "fire");
+        verify(kafkaTemplate, never()).send(testTopic, "es-2");
+        verify(metricsTracker, times(1)).pduShed(1);
+        assertEquals(1, kafkaProducerService.getBacklogSize());
+
+        pending.complete(null);
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 3);
+        kafkaProducerService.sendMessage(1, 3L, null, null, "es-4", 0L);
+
+        InOrder inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send(testTopic, "es-3");
+        inOrder.verify(kafkaTemplate).send(testTopic, "es-4");
+        assertEquals(0, kafkaProducerService.getBacklogSize());
+    }
+
+    @Test
+    void sendMessage_overBudget_conflatedEntitiesAreBoundedByTheBacklogSize() {
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 1);
+        ReflectionTestUtils.setField(kafkaProducerService, "backlogSize", 2);
+        kafkaProducerService.setSheddingPolicies(new String[]{"1:conflate"});
+        when(kafkaTemplate.send(eq(testTopic), anyString())).thenReturn(new CompletableFuture<>());
+
+        for (long entity = 0; entity < 5; entity++) {
+            kafkaProducerService.sendMessage(1, entity, null, null, "es-" + entity, 0L);
+        }
+
+        // es-0 is in flight, es-1 and es-2 were evicted by the newer entities
+        assertEquals(2, kafkaProducerService.getBacklogSize());
+        verify(metricsTracker, times(2)).pduShed(1);
+    }
+
+    @Test
+    void sendMessage_overBudget_dropsOldestWhenBacklogIsFull() {
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 1);
+        ReflectionTestUtils.setField(kafkaProducerService, "backlogSize", 2);
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq(testTopic), anyString())).thenReturn(pending);
+
+        for (int i = 0; i < 4; i++) {
+            kafkaProducerService.sendMessage(20, null, null, "data-" + i);
+        }
+
+        verify(metricsTracker, times(1)).pduShed(20);
+        assertEquals(2, kafkaProducerService.getBacklogSize());
+        assertEquals(1, kafkaProducerService.getInFlight());
+
+        pending.complete(null);
+        kafkaProducerService.sendMessage(20, null, null, "data-4");
+
+        verify(kafkaTemplate, never()).send(testTopic, "data-1");
+        verify(kafkaTemplate).send(testTopic, "data-2");
+    }
+
+    @Test
+    void backlog_drainsOnATimerWhenTrafficStops() {
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 1);
+        ReflectionTestUtils.setField(kafkaProducerService, "backlogDrainIntervalMs", 10L);
+        CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(eq(testTopic), anyString())).thenReturn(pending);
+        kafkaProducerService.start();
+        try {
+            kafkaProducerService.sendMessage(20, null, null, "data-0");
+            kafkaProducerService.sendMessage(20, null, null, "data-1"); // queued behind data-0
+            assertEquals(1, kafkaProducerService.getBacklogSize());
+
+            pending.complete(null); // no further sends follow
+
+            verify(kafkaTemplate, timeout(2000)).send(testTopic, "data-1");
+        } finally {
+            kafkaProducerService.stop();
+        }
+    }
+}
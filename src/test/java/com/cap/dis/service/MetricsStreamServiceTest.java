@@ -0,0 +1,111 @@
+package com.cap.dis.service;
+
+import com.cap.dis.model.RealTimeMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsStreamServiceTest {
+
+    @Mock
+    private DisMetricsTracker metricsTracker;
+
+    // Stand-in writer thread: tasks run when the test says so
+    private final List<Runnable> writes = new ArrayList<>();
+
+    private MetricsStreamService metricsStreamService;
+
+    @BeforeEach
+    void setUp() {
+        metricsStreamService = new MetricsStreamService(metricsTracker, writes::add);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SseEmitter> subscribers() throws Exception {
+        Field field = MetricsStreamService.class.getDeclaredField("subscribers");
+        field.setAccessible(true);
+        return (List<SseEmitter>) field.get(metricsStreamService);
+    }
+
+    private void runWrites() {
+        List<Runnable> queued = new ArrayList<>(writes);
+        writes.clear();
+        queued.forEach(Runnable::run);
+    }
+
+    @Test
+    void start_listensToPublishedSnapshots() {
+        metricsStreamService.start();
+
+        verify(metricsTracker).registerSnapshotListener(any());
+    }
+
+    @Test
+    void broadcast_writesTheSnapshotToAllSubscribersOnTheWriter() throws Exception {
+        SseEmitter first = mock(SseEmitter.class);
+        SseEmitter second = mock(SseEmitter.class);
+        subscribers().addAll(List.of(first, second));
+
+        metricsStreamService.broadcast(new RealTimeMetrics(1L, 60L, 1.0));
+
+        verify(first, never()).send(any(SseEmitter.SseEventBuilder.class));
+        runWrites();
+        verify(first).send(any(SseEmitter.SseEventBuilder.class));
+        verify(second).send(any(SseEmitter.SseEventBuilder.class));
+        verifyNoInteractions(metricsTracker);
+    }
+
+    @Test
+    void broadcast_whileAWriteIsQueued_onlyTheNewestSnapshotIsSent() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        subscribers().add(emitter);
+
+        metricsStreamService.broadcast(new RealTimeMetrics(1L, 60L, 1.0));
+        metricsStreamService.broadcast(new RealTimeMetrics(2L, 120L, 2.0));
+
+        assertEquals(1, writes.size());
+        runWrites();
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void broadcast_skipsTheWriteWithoutSubscribers() {
+        metricsStreamService.broadcast(new RealTimeMetrics(1L, 60L, 1.0));
+
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void broadcast_dropsSubscribersThatWentAway() throws Exception {
+        SseEmitter gone = mock(SseEmitter.class);
+        SseEmitter open = mock(SseEmitter.class);
+        doThrow(new IOException("Broken pipe")).when(gone).send(any(SseEmitter.SseEventBuilder.class));
+        subscribers().addAll(List.of(gone, open));
+
+        metricsStreamService.broadcast(new RealTimeMetrics(1L, 60L, 1.0));
+        runWrites();
+
+        assertEquals(1, metricsStreamService.getSubscriberCount());
+        verify(gone).completeWithError(any(IOException.class));
+        verify(open).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void subscribe_registersTheEmitter() {
+        assertNotNull(metricsStreamService.subscribe());
+        assertEquals(1, metricsStreamService.getSubscriberCount());
+    }
+}
@@ -122,6 +122,7 @@ class UdpListenerServiceDesignatorTest {
         
         // Create a byte array that's large enough to be a valid PDU
         byte[] validSizeData = new byte[20];
+        validSizeData[2] = 24; // PDU type in the DIS header
         
         // Act
         String result = (String) invokePrivateMethod(
@@ -133,12 +134,12 @@ class UdpListenerServiceDesignatorTest {
         
         // Assert
         // Verify that designatorPduReceived was called
-        verify(metricsTracker, times(1)).designatorPduReceived();
-        verify(metricsTracker, never()).entityStatePduReceived();
-        verify(metricsTracker, never()).fireEventPduReceived();
-        verify(metricsTracker, never()).collisionPduReceived();
-        verify(metricsTracker, never()).detonationPduReceived();
-        verify(metricsTracker, never()).pduReceived();
+        verify(metricsTracker, times(1)).pduTypeReceived(24);
+        verify(metricsTracker, never()).pduTypeReceived(1);
+        verify(metricsTracker, never()).pduTypeReceived(2);
+        verify(metricsTracker, never()).pduTypeReceived(4);
+        verify(metricsTracker, never()).pduTypeReceived(3);
+        verify(metricsTracker, times(1)).pduTypeReceived(anyInt());
         
         // Verify the result is a valid JSON
         JsonNode rootNode = objectMapper.readTree(result);
@@ -0,0 +1,216 @@
+package com.cap.dis.service;
+
+import com.cap.dis.codec.FlyweightJson;
+import edu.nps.moves.dis.*;
+import edu.nps.moves.disutil.PduFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UdpListenerServiceFlyweightTest {
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private DisMetricsTracker metricsTracker;
+
+    @InjectMocks
+    private UdpListenerService udpListenerService;
+
+    private Object invokePrivateMethod(Object object, String methodName, Class<?>[] parameterTypes, Object[] parameters) throws Exception {
+        Method method = object.getClass().getDeclaredMethod(methodName, parameterTypes);
+        method.setAccessible(true);
+        return method.invoke(object, parameters);
+    }
+
+    private static EntityID entityId(int site, int application, int entity) {
+        EntityID id = new EntityID();
+        id.setSite(site);
+        id.setApplication(application);
+        id.setEntity(entity);
+        return id;
+    }
+
+    private static <T extends Pdu> T withHeader(T pdu) {
+        pdu.setProtocolVersion((short) 7);
+        pdu.setExerciseID((short) 250);
+        pdu.setTimestamp(0xFFFFFFF0L); // MSB set, must come out unsigned on both paths
+        return pdu;
+    }
+
+    // pduToJson on the object must equal the flyweight output for the marshalled bytes, byte for byte
+    private void assertSameJson(Pdu pdu) throws Exception {
+        long processedAt = 1_700_000_000_123L;
+        String expected = ((String) invokePrivateMethod(udpListenerService, "pduToJson",
+                new Class<?>[]{Pdu.class}, new Object[]{pdu}))
+                .replaceFirst("\"processedAt\":\\d+}$", "\"processedAt\":" + processedAt + "}");
+
+        byte[] bytes = pdu.marshal();
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+        buffer.position(3);
+        buffer.put(bytes);
+        buffer.position(3);
+
+        assertTrue(FlyweightJson.canWrite(buffer, 3));
+        assertEquals(expected, FlyweightJson.toJson(buffer, 3, processedAt));
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), FlyweightJson.toJsonBytes(buffer, 3, processedAt));
+    }
+
+    @Test
+    void entityStatePdu_matchesPduToJson() throws Exception {
+        EntityStatePdu pdu = withHeader(new EntityStatePdu());
+        pdu.setEntityID(entityId(65535, 23, 1001));
+        pdu.getEntityLocation().setX(-2707215.123456789);
+        pdu.getEntityLocation().setY(4.9E-324);
+        pdu.getEntityLocation().setZ(1.0E22);
+        assertSameJson(pdu);
+    }
+
+    @Test
+    void firePdu_matchesPduToJson() throws Exception {
+        FirePdu pdu = withHeader(new FirePdu());
+        pdu.setFiringEntityID(entityId(18, 23, 1002));
+        pdu.setTargetEntityID(entityId(18, 23, 1003));
+        pdu.setMunitionID(entityId(18, 23, 50));
+        assertSameJson(pdu);
+    }
+
+    @Test
+    void detonationPdu_matchesPduToJson() throws Exception {
+        DetonationPdu pdu = withHeader(new DetonationPdu());
+        pdu.setFiringEntityID(entityId(18, 23, 1006));
+        pdu.setTargetEntityID(entityId(18, 23, 1007));
+        assertSameJson(pdu);
+    }
+
+    @Test
+    void collisionPdu_matchesPduToJson() throws Exception {
+        CollisionPdu pdu = withHeader(new CollisionPdu());
+        pdu.setIssuingEntityID(entityId(18, 23, 1004));
+        pdu.setCollidingEntityID(entityId(18, 23, 1005));
+        assertSameJson(pdu);
+    }
+
+    @Test
+    void designatorPdu_matchesPduToJson() throws Exception {
+        DesignatorPdu pdu = withHeader(new DesignatorPdu());
+        pdu.setDesignatingEntityID(entityId(18, 23, 1008));
+        pdu.setCodeName(0x7FFF);
+        pdu.setDesignatedEntityID(entityId(18, 23, 1009));
+        assertSameJson(pdu);
+    }
+
+    @Test
+    void canWrite_rejectsOtherTypesAndTruncatedPdus() {
+        ByteBuffer startResume = ByteBuffer.wrap(new StartResumePdu().marshal());
+        byte[] entityState = new EntityStatePdu().marshal();
+        ByteBuffer truncated = ByteBuffer.wrap(entityState, 0, entityState.length - 1).slice();
+
+        assertFalse(FlyweightJson.canWrite(startResume, 0));
+        assertFalse(FlyweightJson.canWrite(truncated, 0));
+    }
+
+    @Test
+    void canWrite_checksTheDeclaredArticulationParameters() {
+        EntityStatePdu entityState = new EntityStatePdu();
+        entityState.getArticulationParameters().add(new ArticulationParameter());
+        DetonationPdu detonation = new DetonationPdu();
+        detonation.getArticulationParameters().add(new ArticulationParameter());
+        byte[] entityStateBytes = entityState.marshal();
+        byte[] detonationBytes = detonation.marshal();
+
+        assertTrue(FlyweightJson.canWrite(ByteBuffer.wrap(entityStateBytes), 0));
+        assertTrue(FlyweightJson.canWrite(ByteBuffer.wrap(detonationBytes), 0));
+        assertFalse(FlyweightJson.canWrite(ByteBuffer.wrap(entityStateBytes, 0, entityStateBytes.length - 1).slice(), 0));
+        assertFalse(FlyweightJson.canWrite(ByteBuffer.wrap(detonationBytes, 0, detonationBytes.length - 1).slice(), 0));
+    }
+
+    @Test
+    void decodeDisPdu_truncatedArticulatedEntityState_reportsInsufficientData() throws Exception {
+        EntityStatePdu pdu = withHeader(new EntityStatePdu());
+        pdu.getArticulationParameters().add(new ArticulationParameter());
+        pdu.getArticulationParameters().add(new ArticulationParameter());
+        byte[] marshalled = pdu.marshal();
+        // Fixed part and one of the two declared articulation parameters
+        byte[] truncated = Arrays.copyOf(marshalled, marshalled.length - 16);
+        PduFactory pduFactory = mock(PduFactory.class);
+        when(pduFactory.createPdu(any(byte[].class))).thenAnswer(invocation -> {
+            EntityStatePdu decoded = new EntityStatePdu();
+            decoded.unmarshal(ByteBuffer.wrap(invocation.getArgument(0, byte[].class)));
+            return decoded;
+        });
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory originalPduFactory = (PduFactory) pduFactoryField.get(udpListenerService);
+        pduFactoryField.set(udpListenerService, pduFactory);
+
+        try {
+            String result = (String) invokePrivateMethod(udpListenerService, "decodeDisPdu",
+                    new Class<?>[]{byte[].class}, new Object[]{truncated});
+
+            assertEquals("{\"error\":\"Insufficient data in PDU buffer\",\"length\":" + truncated.length + "}", result);
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void decodeDisPdu_hotTypesBypassPduFactory() throws Exception {
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory originalPduFactory = (PduFactory) pduFactoryField.get(udpListenerService);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+
+        try {
+            FirePdu pdu = withHeader(new FirePdu());
+            pdu.setFiringEntityID(entityId(1, 2, 3));
+            String result = (String) invokePrivateMethod(udpListenerService, "decodeDisPdu",
+                    new Class<?>[]{byte[].class}, new Object[]{pdu.marshal()});
+
+            assertTrue(result.startsWith("{\"type\":\"FirePdu\",\"protocolVersion\":7,\"exerciseID\":250,\"pduType\":2,"));
+            assertTrue(result.contains("\"firingEntityId\":{\"site\":1,\"application\":2,\"entity\":3}"));
+            verify(metricsTracker, times(1)).pduTypeReceived(2);
+            verify(spyPduFactory, never()).createPdu(any(byte[].class));
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void encodeDisPdu_writesSameJsonAsBytes() throws Exception {
+        CollisionPdu pdu = withHeader(new CollisionPdu());
+        pdu.setIssuingEntityID(entityId(4, 5, 6));
+        ByteBuffer buffer = ByteBuffer.wrap(pdu.marshal());
+
+        byte[] result = (byte[]) invokePrivateMethod(udpListenerService, "encodeDisPdu",
+                new Class<?>[]{ByteBuffer.class}, new Object[]{buffer});
+
+        String json = new String(result, StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"type\":\"CollisionPdu\",\"protocolVersion\":7,\"exerciseID\":250,\"pduType\":4,"));
+        assertTrue(json.contains("\"issuingEntityId\":{\"site\":4,\"application\":5,\"entity\":6}"));
+        verify(metricsTracker, times(1)).pduTypeReceived(4);
+    }
+
+    @Test
+    void encodeDisPdu_fallsBackToStringJsonForErrors() throws Exception {
+        byte[] result = (byte[]) invokePrivateMethod(udpListenerService, "encodeDisPdu",
+                new Class<?>[]{ByteBuffer.class}, new Object[]{ByteBuffer.wrap(new byte[5])});
+
+        assertEquals("{\"error\":\"PDU data too small to be valid\",\"length\":5}", new String(result, StandardCharsets.UTF_8));
+    }
+}
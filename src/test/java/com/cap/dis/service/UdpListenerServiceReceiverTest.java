@@ -0,0 +1,156 @@
+package com.cap.dis.service;
+
+import com.cap.dis.codec.RawPduEnvelope;
+import edu.nps.moves.dis.EntityStatePdu;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UdpListenerServiceReceiverTest {
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private DisMetricsTracker metricsTracker;
+
+    @InjectMocks
+    private UdpListenerService udpListenerService;
+
+    private int freePort() throws Exception {
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+
+    private void startReceivers(String receiveMode, int receiverThreads) throws Exception {
+        startReceivers(receiveMode, receiverThreads, false);
+    }
+
+    private void startReceivers(String receiveMode, int receiverThreads, boolean pipeline) throws Exception {
+        startReceivers(receiveMode, receiverThreads, pipeline, new byte[10]);
+    }
+
+    private void startReceivers(String receiveMode, int receiverThreads, boolean pipeline, byte[] datagram) throws Exception {
+        int port = freePort();
+        ReflectionTestUtils.setField(udpListenerService, "port", port);
+        ReflectionTestUtils.setField(udpListenerService, "bufferSize", 2048);
+        ReflectionTestUtils.setField(udpListenerService, "receiveMode", receiveMode);
+        ReflectionTestUtils.setField(udpListenerService, "receiverThreads", receiverThreads);
+        ReflectionTestUtils.setField(udpListenerService, "pipelineEnabled", pipeline);
+        ReflectionTestUtils.setField(udpListenerService, "pipelineRingSize", 64);
+
+        // startListening() runs the first receiver on the calling thread (normally the @Async executor)
+        Thread listener = new Thread(udpListenerService::startListening, "test-udp-listener");
+        listener.setDaemon(true);
+        listener.start();
+
+        // Keep sending until a receiver picks it up; the sockets bind asynchronously
+        try (DatagramSocket sender = new DatagramSocket()) {
+            for (int i = 0; i < 50; i++) {
+                sender.send(new DatagramPacket(datagram, datagram.length, InetAddress.getLoopbackAddress(), port));
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    @Test
+    void startListening_reusePortGroupInChannelMode_publishesDecodedDatagrams() throws Exception {
+        startReceivers("channel", 3);
+
+        verify(kafkaProducerService, timeout(2000).atLeastOnce())
+                .sendMessage(anyInt(), anyLong(), isNull(), isNull(), contains("PDU data too small to be valid"), anyLong());
+    }
+
+    @Test
+    void startListening_reusePortGroupInSocketMode_publishesDecodedDatagrams() throws Exception {
+        startReceivers("socket", 2);
+
+        verify(kafkaProducerService, timeout(2000).atLeastOnce())
+                .sendMessage(anyInt(), anyLong(), isNull(), isNull(), contains("PDU data too small to be valid"), anyLong());
+    }
+
+    @Test
+    void startListening_pipelineInChannelMode_publishesFromPublishStage() throws Exception {
+        startReceivers("channel", 1, true);
+
+        verify(kafkaProducerService, timeout(2000).atLeastOnce())
+                .sendMessage(anyInt(), anyLong(), isNull(), isNull(), contains("PDU data too small to be valid"), anyLong());
+        verify(metricsTracker, timeout(2000)).registerPipeline(any());
+    }
+
+    @Test
+    void startListening_pipelineInSocketMode_publishesFromPublishStage() throws Exception {
+        startReceivers("socket", 2, true);
+
+        verify(kafkaProducerService, timeout(2000).atLeastOnce())
+                .sendMessage(anyInt(), anyLong(), isNull(), isNull(), contains("PDU data too small to be valid"), anyLong());
+        verify(metricsTracker, timeout(2000).times(2)).registerPipeline(any());
+    }
+
+    @Test
+    void startListening_pipelineWithShardedWorkers_publishesEntityStateFromFlyweight() throws Exception {
+        ReflectionTestUtils.setField(udpListenerService, "pipelineDecodeWorkers", 2);
+        EntityStatePdu entityState = new EntityStatePdu();
+        entityState.getEntityID().setEntity(1001);
+        udpListenerService.setKeyStrategy("entity");
+
+        startReceivers("channel", 1, true, entityState.marshal());
+
+        verify(kafkaProducerService, timeout(2000).atLeastOnce())
+                .sendMessage(eq(1), anyLong(), isNull(), eq("0:0:1001"), contains("\"type\":\"EntityStatePdu\""), anyLong());
+        verify(metricsTracker, atLeastOnce()).pduTypeReceived(1);
+    }
+
+    @Test
+    void startListening_rawOutputInPipeline_publishesEnvelopedDatagram() throws Exception {
+        ReflectionTestUtils.setField(udpListenerService, "outputMode", "raw");
+        EntityStatePdu entityState = new EntityStatePdu();
+        entityState.setExerciseID((short) 3);
+        byte[] datagram = entityState.marshal();
+
+        startReceivers("channel", 1, true, datagram);
+
+        ArgumentCaptor<byte[]> record = ArgumentCaptor.forClass(byte[].class);
+        verify(kafkaProducerService, timeout(2000).atLeastOnce()).sendMessage(eq(1), anyLong(), isNull(), isNull(), record.capture(), anyLong());
+        ByteBuffer envelope = ByteBuffer.wrap(record.getValue());
+        assertEquals(1, RawPduEnvelope.pduType(envelope));
+        assertEquals(3, RawPduEnvelope.exerciseId(envelope));
+        assertEquals(InetAddress.getLoopbackAddress(), RawPduEnvelope.sourceAddress(envelope));
+        assertArrayEquals(datagram, Arrays.copyOfRange(record.getValue(), RawPduEnvelope.pduOffset(envelope), record.getValue().length));
+        verify(kafkaProducerService, never()).sendMessage(anyInt(), anyLong(), any(), any(), any(String.class), anyLong());
+    }
+
+    @Test
+    void startListening_jsonBytesInSocketMode_encodesFromTheReceiveBuffer() throws Exception {
+        ReflectionTestUtils.setField(udpListenerService, "outputMode", "json-bytes");
+        EntityStatePdu entityState = new EntityStatePdu();
+        entityState.getEntityID().setEntity(42);
+
+        startReceivers("socket", 1, false, entityState.marshal());
+
+        ArgumentCaptor<byte[]> record = ArgumentCaptor.forClass(byte[].class);
+        verify(kafkaProducerService, timeout(2000).atLeastOnce()).sendMessage(eq(1), anyLong(), isNull(), isNull(), record.capture(), anyLong());
+        assertTrue(new String(record.getValue(), StandardCharsets.UTF_8).contains("\"type\":\"EntityStatePdu\""));
+    }
+}
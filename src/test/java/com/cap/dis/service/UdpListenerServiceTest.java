@@ -1,5 +1,9 @@
 package com.cap.dis.service;
 
+import com.cap.dis.codec.PduBytes;
+import com.cap.dis.filter.DeadReckoningFilter;
+import com.cap.dis.filter.EntityStateConflator;
+import com.cap.dis.metrics.TimedStage;
 import edu.nps.moves.dis.EntityID;
 import edu.nps.moves.dis.EntityStatePdu;
 import edu.nps.moves.dis.FirePdu;
@@ -288,6 +292,30 @@ class UdpListenerServiceTest {
         }
     }
     
+    @Test
+    void testDecodeDisPdu_timesDispatchUnmarshalAndSerializeStages() throws Exception {
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        doReturn(createSampleEntityStatePdu()).when(spyPduFactory).createPdu(any(byte[].class));
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+        when(metricsTracker.stageStart()).thenReturn(42L); // every stage sampled
+
+        try {
+            byte[] validSizeData = new byte[20];
+            validSizeData[2] = 1;
+
+            invokePrivateMethod(udpListenerService, "decodeDisPdu", new Class<?>[]{byte[].class}, new Object[]{validSizeData});
+
+            verify(metricsTracker).stageEnd(TimedStage.DISPATCH, 42L);
+            verify(metricsTracker).stageEnd(TimedStage.UNMARSHAL, 42L);
+            verify(metricsTracker).stageEnd(TimedStage.SERIALIZE, 42L);
+            verify(metricsTracker, never()).stageEnd(eq(TimedStage.KAFKA_ENQUEUE), anyLong());
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
     @Test
     void testDecodeDisPdu_entityStatePdu() throws Exception {
         // Create a sample EntityStatePdu
@@ -309,6 +337,7 @@ class UdpListenerServiceTest {
         try {
             // Create a byte array that's large enough to be a valid PDU
             byte[] validSizeData = new byte[20];
+            validSizeData[2] = 1; // PDU type in the DIS header
             
             // Call the method
             String result = (String) invokePrivateMethod(
@@ -319,11 +348,11 @@ class UdpListenerServiceTest {
             );
             
             // Verify that entityStatePduReceived was called
-            verify(metricsTracker, times(1)).entityStatePduReceived();
-            verify(metricsTracker, never()).fireEventPduReceived();
-            verify(metricsTracker, never()).collisionPduReceived();
-            verify(metricsTracker, never()).detonationPduReceived();
-            verify(metricsTracker, never()).pduReceived();
+            verify(metricsTracker, times(1)).pduTypeReceived(1);
+            verify(metricsTracker, never()).pduTypeReceived(2);
+            verify(metricsTracker, never()).pduTypeReceived(4);
+            verify(metricsTracker, never()).pduTypeReceived(3);
+            verify(metricsTracker, times(1)).pduTypeReceived(anyInt());
             
             // Verify the result is a valid JSON
             JsonNode rootNode = objectMapper.readTree(result);
@@ -355,6 +384,7 @@ class UdpListenerServiceTest {
         try {
             // Create a byte array that's large enough to be a valid PDU
             byte[] validSizeData = new byte[20];
+            validSizeData[2] = 2; // PDU type in the DIS header
             
             // Call the method
             String result = (String) invokePrivateMethod(
@@ -365,11 +395,11 @@ class UdpListenerServiceTest {
             );
             
             // Verify that fireEventPduReceived was called
-            verify(metricsTracker, never()).entityStatePduReceived();
-            verify(metricsTracker, times(1)).fireEventPduReceived();
-            verify(metricsTracker, never()).collisionPduReceived();
-            verify(metricsTracker, never()).detonationPduReceived();
-            verify(metricsTracker, never()).pduReceived();
+            verify(metricsTracker, never()).pduTypeReceived(1);
+            verify(metricsTracker, times(1)).pduTypeReceived(2);
+            verify(metricsTracker, never()).pduTypeReceived(4);
+            verify(metricsTracker, never()).pduTypeReceived(3);
+            verify(metricsTracker, times(1)).pduTypeReceived(anyInt());
             
             // Verify the result is a valid JSON
             JsonNode rootNode = objectMapper.readTree(result);
@@ -445,6 +475,7 @@ class UdpListenerServiceTest {
         try {
             // Create a byte array that's large enough to be a valid PDU
             byte[] validSizeData = new byte[20];
+            validSizeData[2] = 4; // PDU type in the DIS header
             
             // Call the method
             String result = (String) invokePrivateMethod(
@@ -455,11 +486,11 @@ class UdpListenerServiceTest {
             );
             
             // Verify that collisionPduReceived was called
-            verify(metricsTracker, never()).entityStatePduReceived();
-            verify(metricsTracker, never()).fireEventPduReceived();
-            verify(metricsTracker, times(1)).collisionPduReceived();
-            verify(metricsTracker, never()).detonationPduReceived();
-            verify(metricsTracker, never()).pduReceived();
+            verify(metricsTracker, never()).pduTypeReceived(1);
+            verify(metricsTracker, never()).pduTypeReceived(2);
+            verify(metricsTracker, times(1)).pduTypeReceived(4);
+            verify(metricsTracker, never()).pduTypeReceived(3);
+            verify(metricsTracker, times(1)).pduTypeReceived(anyInt());
             
             // Verify the result is a valid JSON
             JsonNode rootNode = objectMapper.readTree(result);
@@ -491,6 +522,7 @@ class UdpListenerServiceTest {
         try {
             // Create a byte array that's large enough to be a valid PDU
             byte[] validSizeData = new byte[20];
+            validSizeData[2] = 3; // PDU type in the DIS header
             
             // Call the method
             String result = (String) invokePrivateMethod(
@@ -501,11 +533,11 @@ class UdpListenerServiceTest {
             );
             
             // Verify that detonationPduReceived was called
-            verify(metricsTracker, never()).entityStatePduReceived();
-            verify(metricsTracker, never()).fireEventPduReceived();
-            verify(metricsTracker, never()).collisionPduReceived();
-            verify(metricsTracker, times(1)).detonationPduReceived();
-            verify(metricsTracker, never()).pduReceived();
+            verify(metricsTracker, never()).pduTypeReceived(1);
+            verify(metricsTracker, never()).pduTypeReceived(2);
+            verify(metricsTracker, never()).pduTypeReceived(4);
+            verify(metricsTracker, times(1)).pduTypeReceived(3);
+            verify(metricsTracker, times(1)).pduTypeReceived(anyInt());
             
             // Verify the result is a valid JSON
             JsonNode rootNode = objectMapper.readTree(result);
@@ -541,6 +573,7 @@ class UdpListenerServiceTest {
         try {
             // Create a byte array that's large enough to be a valid PDU
             byte[] validSizeData = new byte[20];
+            validSizeData[2] = 99; // PDU type in the DIS header
             
             // Call the method
             String result = (String) invokePrivateMethod(
@@ -550,12 +583,12 @@ class UdpListenerServiceTest {
                 new Object[]{validSizeData}
             );
             
-            // Verify that the generic pduReceived was called
-            verify(metricsTracker, never()).entityStatePduReceived();
-            verify(metricsTracker, never()).fireEventPduReceived();
-            verify(metricsTracker, never()).collisionPduReceived();
-            verify(metricsTracker, never()).detonationPduReceived();
-            verify(metricsTracker, times(1)).pduReceived();
+            // Verify that the PDU was counted under its own type
+            verify(metricsTracker, never()).pduTypeReceived(1);
+            verify(metricsTracker, never()).pduTypeReceived(2);
+            verify(metricsTracker, never()).pduTypeReceived(4);
+            verify(metricsTracker, never()).pduTypeReceived(3);
+            verify(metricsTracker, times(1)).pduTypeReceived(99);
             
             // Verify the result is a valid JSON
             JsonNode rootNode = objectMapper.readTree(result);
@@ -565,4 +598,165 @@ class UdpListenerServiceTest {
             pduFactoryField.set(udpListenerService, originalPduFactory);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDecodeDisPdu_directBuffer_entityStatePdu() throws Exception {
+        EntityStatePdu pdu = createSampleEntityStatePdu();
+
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        doReturn(pdu).when(spyPduFactory).createPdu(any(ByteBuffer.class));
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+
+        try {
+            // Simulate the channel receive path: datagram sits in a reused direct buffer
+            ByteBuffer buffer = ByteBuffer.allocateDirect(2048);
+            buffer.put(new byte[20]);
+            buffer.put(2, (byte) 1); // EntityState PDU type in the header
+            buffer.flip();
+
+            String result = (String) invokePrivateMethod(
+                udpListenerService,
+                "decodeDisPdu",
+                new Class<?>[]{ByteBuffer.class},
+                new Object[]{buffer}
+            );
+
+            verify(spyPduFactory, times(1)).createPdu(buffer);
+            verify(spyPduFactory, never()).createPdu(any(byte[].class));
+            verify(metricsTracker, times(1)).pduTypeReceived(1);
+
+            JsonNode rootNode = objectMapper.readTree(result);
+            assertEquals("EntityStatePdu", rootNode.get("type").asText());
+            assertEquals(1001, rootNode.get("entityId").get("entity").asInt());
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void testDecodeDisPdu_directBuffer_dataTooSmall() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2048);
+        buffer.put(new byte[10]);
+        buffer.flip();
+
+        String result = (String) invokePrivateMethod(
+            udpListenerService,
+            "decodeDisPdu",
+            new Class<?>[]{ByteBuffer.class},
+            new Object[]{buffer}
+        );
+
+        JsonNode rootNode = objectMapper.readTree(result);
+        assertEquals("PDU data too small to be valid", rootNode.get("error").asText());
+        assertEquals(10, rootNode.get("length").asInt());
+    }
+
+    @Test
+    void testDecodeDisPdu_countsFromHeaderWithoutUnmarshalling() throws Exception {
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+        // Only exercise 5 is of interest; everything else is counted and dropped
+        invokePrivateMethod(udpListenerService, "setAcceptedExerciseIds", new Class<?>[]{int[].class}, new Object[]{new int[]{5}});
+
+        try {
+            byte[] otherExercise = new byte[20];
+            otherExercise[1] = 9;  // exercise ID
+            otherExercise[2] = 2;  // Fire PDU
+
+            String result = (String) invokePrivateMethod(
+                udpListenerService,
+                "decodeDisPdu",
+                new Class<?>[]{byte[].class},
+                new Object[]{otherExercise}
+            );
+
+            assertNull(result, "Filtered PDUs produce nothing to publish");
+            verify(metricsTracker, times(1)).pduTypeReceived(2);
+            verify(spyPduFactory, never()).createPdu(any(byte[].class));
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void testDecodeDisPdu_pduTypeFilterAcceptsListedTypes() throws Exception {
+        FirePdu pdu = createSampleFirePdu();
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        doReturn(pdu).when(spyPduFactory).createPdu(any(byte[].class));
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+        invokePrivateMethod(udpListenerService, "setAcceptedPduTypes", new Class<?>[]{int[].class}, new Object[]{new int[]{2, 3}});
+
+        try {
+            byte[] fire = new byte[20];
+            fire[2] = 2;
+            byte[] entityState = new byte[20];
+            entityState[2] = 1;
+
+            String fireResult = (String) invokePrivateMethod(udpListenerService, "decodeDisPdu",
+                new Class<?>[]{byte[].class}, new Object[]{fire});
+            String entityStateResult = (String) invokePrivateMethod(udpListenerService, "decodeDisPdu",
+                new Class<?>[]{byte[].class}, new Object[]{entityState});
+
+            assertEquals("FirePdu", objectMapper.readTree(fireResult).get("type").asText());
+            assertNull(entityStateResult);
+            verify(metricsTracker, times(1)).pduTypeReceived(1);
+            verify(spyPduFactory, times(1)).createPdu(any(byte[].class));
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void testDecodeDisPdu_deadReckoningFilterSuppressesPredictableEntityStates() throws Exception {
+        Field pduFactoryField = UdpListenerService.class.getDeclaredField("pduFactory");
+        pduFactoryField.setAccessible(true);
+        PduFactory spyPduFactory = spy(originalPduFactory);
+        pduFactoryField.set(udpListenerService, spyPduFactory);
+        DeadReckoningFilter deadReckoningFilter = mock(DeadReckoningFilter.class);
+        when(deadReckoningFilter.shouldPublish(any(ByteBuffer.class), anyInt(), anyLong())).thenReturn(false);
+        invokePrivateMethod(udpListenerService, "setDeadReckoningFilter",
+            new Class<?>[]{DeadReckoningFilter.class}, new Object[]{deadReckoningFilter});
+
+        try {
+            byte[] entityState = createSampleEntityStatePdu().marshal();
+
+            String result = (String) invokePrivateMethod(udpListenerService, "decodeDisPdu",
+                new Class<?>[]{byte[].class}, new Object[]{entityState});
+
+            assertNull(result, "Suppressed Entity States produce nothing to publish");
+            verify(metricsTracker, times(1)).pduTypeReceived(1);
+            verify(spyPduFactory, never()).createPdu(any(byte[].class));
+        } finally {
+            pduFactoryField.set(udpListenerService, originalPduFactory);
+        }
+    }
+
+    @Test
+    void testSend_entityStatesGoThroughTheConflationWindow() throws Exception {
+        EntityStateConflator conflator = mock(EntityStateConflator.class);
+        // Like the real conflator: takes Entity States, declines everything else
+        when(conflator.offer(anyInt(), anyLong(), any(), any(), any(), anyLong()))
+            .thenAnswer(invocation -> (int) invocation.getArgument(0) == 1);
+        invokePrivateMethod(udpListenerService, "setConflator",
+            new Class<?>[]{EntityStateConflator.class}, new Object[]{conflator});
+
+        ByteBuffer entityState = ByteBuffer.wrap(createSampleEntityStatePdu().marshal());
+        invokePrivateMethod(udpListenerService, "send",
+            new Class<?>[]{ByteBuffer.class, int.class, String.class, String.class, String.class, long.class},
+            new Object[]{entityState, 1, null, "1:1:1001", "{\"type\":\"EntityStatePdu\"}", 42L});
+        ByteBuffer fire = ByteBuffer.wrap(createSampleFirePdu().marshal());
+        invokePrivateMethod(udpListenerService, "send",
+            new Class<?>[]{ByteBuffer.class, int.class, String.class, String.class, String.class, long.class},
+            new Object[]{fire, 2, null, null, "{\"type\":\"FirePdu\"}", 43L});
+
+        verify(conflator).offer(1, PduBytes.primaryEntityId(entityState, 0), null, "1:1:1001", "{\"type\":\"EntityStatePdu\"}", 42L);
+        verify(kafkaProducerService, never()).sendMessage(eq(1), anyLong(), any(), any(), anyString(), anyLong());
+        verify(kafkaProducerService).sendMessage(2, PduBytes.primaryEntityId(fire, 0), null, null, "{\"type\":\"FirePdu\"}", 43L);
+    }
+}